@@ -0,0 +1,131 @@
+package ApiREST;
+
+import SERVIDOR.ClasificacionGlobal;
+import SERVIDOR.GestorPartidas;
+import SERVIDOR.HistorialJugadores;
+import SERVIDOR.JugadorPartida;
+import SERVIDOR.Partida;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serializar la clasificación global con 30.000 filas: una página de 100 con
+ * mapas (como antes) o con records, la misma página servida por
+ * {@link ControladorRanking} desde su caché, y la clasificación completa
+ * montada en mapas frente al streaming de {@code /global/completo}.
+ * {@code java -jar target/benchmarks.jar RankingBench -prof gc}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dtrivial.log=WARN")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RankingBench {
+    private static final int PARTIDAS = 10_000;
+    private static final int JUGADORES_POR_PARTIDA = 3;
+    private static final int TAMANO_PAGINA = 100;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<String> codigos = new ArrayList<>();
+    private GestorPartidas gestor;
+    private ClasificacionGlobal clasificacion;
+    private ControladorRanking controlador;
+
+    @Setup
+    public void preparar() {
+        gestor = GestorPartidas.getInstance();
+        clasificacion = ClasificacionGlobal.getInstance();
+        controlador = new ControladorRanking(gestor, clasificacion, HistorialJugadores.getInstance(),
+                new CacheRanking(2000, 1000), mapper);
+        Random random = new Random(1);
+        for (int i = 0; i < PARTIDAS; i++) {
+            String codigo = gestor.crearPartida();
+            Partida partida = gestor.obtenerPartida(codigo);
+            // menos del máximo para que ninguna arranque; los puntos, antes de
+            // entrar, porque la clasificación los toma al unirse
+            for (int j = 0; j < JUGADORES_POR_PARTIDA; j++) {
+                JugadorPartida jugador = new JugadorPartida("j" + random.nextInt(20_000));
+                jugador.sumarPuntos(random.nextInt(200));
+                partida.agregarJugador(jugador, j == 0);
+            }
+            codigos.add(codigo);
+        }
+    }
+
+    @TearDown
+    public void terminar() {
+        for (String codigo : codigos) {
+            gestor.obtenerPartida(codigo).finalizarPartida();
+            gestor.eliminarPartida(codigo);
+        }
+    }
+
+    private static Map<String, Object> fila(ClasificacionGlobal.Entrada entrada, long posicion) {
+        Map<String, Object> fila = new HashMap<>();
+        fila.put("nombre", entrada.getNombre());
+        fila.put("puntuacion", entrada.getPuntos());
+        fila.put("partidaId", entrada.getCodigoPartida());
+        fila.put("posicion", posicion);
+        return fila;
+    }
+
+    @Benchmark
+    public byte[] paginaConMapas() throws IOException {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        long posicion = 0;
+        for (ClasificacionGlobal.Entrada entrada : clasificacion.pagina(0, TAMANO_PAGINA)) {
+            filas.add(fila(entrada, ++posicion));
+        }
+        return mapper.writeValueAsBytes(filas);
+    }
+
+    @Benchmark
+    public byte[] paginaConRecords() throws IOException {
+        List<RespuestasRanking.FilaGlobal> filas = new ArrayList<>(TAMANO_PAGINA);
+        long posicion = 0;
+        for (ClasificacionGlobal.Entrada entrada : clasificacion.pagina(0, TAMANO_PAGINA)) {
+            filas.add(new RespuestasRanking.FilaGlobal(entrada.getNombre(), entrada.getPuntos(),
+                    entrada.getCodigoPartida(), ++posicion));
+        }
+        return mapper.writeValueAsBytes(filas);
+    }
+
+    @Benchmark
+    public byte[] paginaDelControlador() {
+        return controlador.getRankingGlobal(0, TAMANO_PAGINA, null).getBody();
+    }
+
+    @Benchmark
+    public byte[] completoConMapas() throws IOException {
+        List<Map<String, Object>> filas = new ArrayList<>();
+        long posicion = 0;
+        for (ClasificacionGlobal.Entrada entrada : clasificacion.todas()) {
+            filas.add(fila(entrada, ++posicion));
+        }
+        return mapper.writeValueAsBytes(filas);
+    }
+
+    @Benchmark
+    public void completoEnStreaming() throws IOException {
+        controlador.getRankingGlobalCompleto(null).getBody().writeTo(OutputStream.nullOutputStream());
+    }
+}
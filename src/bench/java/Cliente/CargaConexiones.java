@@ -0,0 +1,101 @@
+package Cliente;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga de conexiones ociosas: abre muchas, cada una elige
+ * "crear partida" y se queda sin contestar a la petición de nombre, que es
+ * donde un cliente lento deja su sesión. Sirve para comparar lo que cuesta
+ * cada sesión en el servidor según el modo (hilos, virtual, nio).
+ *
+ * Se arranca el servidor y después esto, con el pid del servidor si se quiere
+ * el coste medido aquí mismo:
+ * <pre>
+ * java -Xss1m -Dtrivial.log=WARN -cp target/benchmarks.jar SERVIDOR.ServidorTrivial nio
+ * java -cp target/benchmarks.jar Cliente.CargaConexiones 10000 &lt;pid&gt;
+ * </pre>
+ * Con el pid, y ya abiertas todas, se fuerza un GC con jcmd y se imprimen los
+ * hilos y la memoria residente del servidor (de /proc, solo en Linux) y el
+ * montón ocupado. El proceso que abre las conexiones necesita un límite de
+ * ficheros abiertos por encima de N (ulimit -n).
+ */
+public class CargaConexiones {
+    private static final long ESPERA_ESTABLE_MS = 3000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Uso: CargaConexiones <conexiones> [pid del servidor] [host]");
+            System.exit(2);
+        }
+        int total = Integer.parseInt(args[0]);
+        String pid = args.length > 1 ? args[1] : null;
+        String host = args.length > 2 ? args[2] : Cliente.HOST;
+
+        List<Socket> abiertas = new ArrayList<>(total);
+        int fallidas = 0;
+        long inicio = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            try {
+                Socket socket = new Socket();
+                socket.connect(new InetSocketAddress(host, Cliente.PUERTO), 5000);
+                OutputStream salida = socket.getOutputStream();
+                salida.write("1\n".getBytes(StandardCharsets.UTF_8));
+                salida.flush();
+                abiertas.add(socket);
+            } catch (IOException e) {
+                if (fallidas++ == 0) {
+                    System.err.println("Primera conexión fallida (" + i + "): " + e.getMessage());
+                }
+            }
+        }
+        long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        System.out.println("Abiertas " + abiertas.size() + " de " + total + " en " + ms + " ms (" + fallidas + " fallidas)");
+
+        // que el servidor termine de atender los "1" antes de medir
+        Thread.sleep(ESPERA_ESTABLE_MS);
+        if (pid != null) {
+            medirServidor(pid);
+        }
+        for (Socket socket : abiertas) {
+            socket.close();
+        }
+    }
+
+    private static void medirServidor(String pid) throws IOException, InterruptedException {
+        jcmd(pid, "GC.run");
+        for (String linea : Files.readAllLines(Path.of("/proc", pid, "status"))) {
+            if (linea.startsWith("Threads:") || linea.startsWith("VmRSS:")) {
+                System.out.println("Servidor " + linea.replaceAll("\\s+", " "));
+            }
+        }
+        for (String linea : jcmd(pid, "GC.heap_info")) {
+            if (linea.contains(" total ") && linea.contains(" used ")) {
+                System.out.println("Servidor " + linea.trim());
+            }
+        }
+    }
+
+    private static List<String> jcmd(String pid, String orden) throws IOException, InterruptedException {
+        Process proceso = new ProcessBuilder("jcmd", pid, orden).redirectErrorStream(true).start();
+        List<String> lineas = new ArrayList<>();
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(proceso.getInputStream(), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                lineas.add(linea);
+            }
+        }
+        proceso.waitFor();
+        return lineas;
+    }
+}
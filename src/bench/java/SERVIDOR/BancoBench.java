@@ -0,0 +1,81 @@
+package SERVIDOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Elegir las preguntas de una partida: la copia del banco con cinco
+ * consecutivas que se hacía antes frente a {@link BancoPreguntas#seleccionar}.
+ * Lo que interesa son los bytes por llamada, así que se lanza con el perfil
+ * de GC: {@code java -jar target/benchmarks.jar BancoBench -prof gc}
+ * (columna gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dtrivial.log=WARN")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class BancoBench {
+    private BancoPreguntas banco;
+    // la categoría con más preguntas y cuántas se piden de ella
+    private String categoria = "";
+    private int cantidadCategoria;
+
+    @Setup
+    public void preparar() {
+        banco = GestorPreguntas.getInstance().getBanco();
+        if (banco.size() < Partida.TOTAL_RONDAS) {
+            throw new IllegalStateException("El banco solo tiene " + banco.size() + " preguntas");
+        }
+        int mayor = 0;
+        for (String candidata : banco.getCategorias()) {
+            int total = 0;
+            for (Pregunta pregunta : banco.asList()) {
+                if (candidata.equals(pregunta.getCategoria())) {
+                    total++;
+                }
+            }
+            if (total > mayor) {
+                mayor = total;
+                categoria = candidata;
+            }
+        }
+        cantidadCategoria = Math.min(mayor, Partida.TOTAL_RONDAS);
+    }
+
+    /** Lo que hacía Partida.seleccionarPreguntas, con la copia de obtenerPreguntas() incluida. */
+    @Benchmark
+    public List<Pregunta> copiaYConsecutivas() {
+        List<Pregunta> todasLasPreguntas = new ArrayList<>(banco.asList());
+        Random random = new Random();
+        int indiceInicial = random.nextInt(todasLasPreguntas.size() - Partida.TOTAL_RONDAS + 1);
+        List<Pregunta> preguntasPartida = new ArrayList<>();
+        for (int i = 0; i < Partida.TOTAL_RONDAS; i++) {
+            preguntasPartida.add(todasLasPreguntas.get(indiceInicial + i));
+        }
+        return preguntasPartida;
+    }
+
+    @Benchmark
+    public List<Pregunta> seleccionar() {
+        return banco.seleccionar(Partida.TOTAL_RONDAS);
+    }
+
+    @Benchmark
+    public List<Pregunta> seleccionarCategoria() {
+        return banco.seleccionar(categoria, cantidadCategoria);
+    }
+}
@@ -0,0 +1,111 @@
+package SERVIDOR;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Consultas a {@link ClasificacionGlobal} con 10.000 partidas de tres
+ * jugadores sin terminar, frente al recorrido de todas las partidas con el que
+ * se calculaba antes el top 10, y el coste de recolocar a un jugador al
+ * sumar puntos. {@code java -jar target/benchmarks.jar ClasificacionBench}
+ * (con -t 8 para ver las escrituras en paralelo).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dtrivial.log=WARN")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ClasificacionBench {
+    private static final int PARTIDAS = 10_000;
+    private static final int NOMBRES = 20_000;
+
+    private GestorPartidas gestor;
+    private ClasificacionGlobal clasificacion;
+    private final List<String> codigos = new ArrayList<>();
+    private final List<JugadorPartida> jugadores = new ArrayList<>();
+
+    @Setup
+    public void preparar() {
+        gestor = GestorPartidas.getInstance();
+        clasificacion = ClasificacionGlobal.getInstance();
+        Random random = new Random(1);
+        for (int i = 0; i < PARTIDAS; i++) {
+            String codigo = gestor.crearPartida();
+            Partida partida = gestor.obtenerPartida(codigo);
+            // tres de cuatro: con el cuarto la partida arrancaría
+            for (int j = 0; j < Partida.MAX_JUGADORES - 1; j++) {
+                JugadorPartida jugador = new JugadorPartida("j" + random.nextInt(NOMBRES));
+                partida.agregarJugador(jugador, j == 0);
+                gestor.registrarJugadorEnPartida(jugador.getNombre(), codigo);
+                jugador.sumarPuntos(random.nextInt(200));
+                clasificacion.puntosActualizados(jugador);
+                jugadores.add(jugador);
+            }
+            codigos.add(codigo);
+        }
+    }
+
+    @TearDown
+    public void terminar() {
+        for (String codigo : codigos) {
+            gestor.obtenerPartida(codigo).finalizarPartida();
+            gestor.eliminarPartida(codigo);
+        }
+    }
+
+    @Benchmark
+    public List<ClasificacionGlobal.Entrada> top10() {
+        return clasificacion.top(10);
+    }
+
+    /** Como se calculaba antes: el mejor resultado de cada nombre recorriendo todas las partidas. */
+    @Benchmark
+    public List<Map.Entry<String, Integer>> top10Recorriendo() {
+        Map<String, Integer> mejores = new HashMap<>();
+        for (Partida partida : gestor.getPartidasActivas()) {
+            for (JugadorPartida jugador : partida.getJugadores()) {
+                mejores.merge(jugador.getNombre(), jugador.getPuntuacionTotal(), Integer::max);
+            }
+        }
+        return mejores.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(10)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public ClasificacionGlobal.Resumen estadisticas() {
+        return clasificacion.estadisticas("j" + ThreadLocalRandom.current().nextInt(NOMBRES));
+    }
+
+    @Benchmark
+    public List<ClasificacionGlobal.Entrada> pagina100() {
+        return clasificacion.pagina(0, 100);
+    }
+
+    @Benchmark
+    public JugadorPartida puntosActualizados() {
+        JugadorPartida jugador = jugadores.get(ThreadLocalRandom.current().nextInt(jugadores.size()));
+        jugador.sumarPuntos(5);
+        clasificacion.puntosActualizados(jugador);
+        return jugador;
+    }
+}
@@ -0,0 +1,104 @@
+package SERVIDOR;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * La cola de partida rápida. "hastaPartida" muestrea cuánto tarda un jugador
+ * desde que se encola hasta que tiene partida (p50, p90, p99... en la salida
+ * de SampleTime); cada hilo es un jugador que vuelve a la cola en cuanto sale
+ * de la anterior, así que con un múltiplo de cuatro hilos los grupos se
+ * llenan y con otro número alguno arranca por plazo.
+ * "encolar" mide la cola saturada: los hilos encolan sin esperar.
+ * {@code java -jar target/benchmarks.jar EmparejamientoBench -t 4} (y -t 8, 16).
+ *
+ * Cada jugador sale de su partida nada más formarse, como si terminara en el
+ * acto; si no, las partidas se acumulan y lo que se mide son las pausas del GC.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = {"-Dtrivial.log=WARN", "-Dtrivial.datos=target/bench-datos"})
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class EmparejamientoBench {
+    // lo que espera de más el último jugador de una iteración, que se queda solo
+    private static final long ABANDONO_MS = 1000;
+
+    @Param({"100"})
+    public long esperaMs;
+
+    private GestorPartidas gestor;
+    private ColaEmparejamiento cola;
+    private final OyentePartida oyente = new OyenteMudo(0);
+
+    @State(Scope.Thread)
+    public static class Hilo {
+        String prefijo;
+        int serie;
+
+        @Setup
+        public void preparar(ThreadParams hilo) {
+            prefijo = "h" + hilo.getThreadIndex() + "-";
+        }
+
+        JugadorPartida siguiente() {
+            return new JugadorPartida(prefijo + (serie++ & 1023));
+        }
+    }
+
+    @Setup
+    public void preparar() {
+        GestorPreguntas.getInstance().getBanco();
+        gestor = GestorPartidas.getInstance();
+        cola = new ColaEmparejamiento(gestor, esperaMs);
+    }
+
+    // la partida sale del gestor antes que el jugador: así también se borran
+    // del índice por nombre quienes ya se fueron
+    private void salir(Partida partida, JugadorPartida jugador) {
+        if (partida != null) {
+            gestor.eliminarPartida(partida.getCodigo());
+            partida.eliminarJugador(jugador);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Partida hastaPartida(Hilo hilo) throws Exception {
+        ColaEmparejamiento.Solicitud solicitud = cola.encolar(hilo.siguiente(), oyente, partida -> { });
+        Partida partida;
+        try {
+            partida = solicitud.getPartida().get(esperaMs + ABANDONO_MS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (cola.retirar(solicitud)) {
+                return null;
+            }
+            partida = solicitud.getPartida().join();
+        }
+        salir(partida, solicitud.getJugador());
+        return partida;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public ColaEmparejamiento.Solicitud encolar(Hilo hilo) {
+        ColaEmparejamiento.Solicitud solicitud = cola.encolar(hilo.siguiente(), oyente, partida -> { });
+        solicitud.getPartida().thenAccept(partida -> salir(partida, solicitud.getJugador()));
+        return solicitud;
+    }
+}
@@ -0,0 +1,58 @@
+package SERVIDOR;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * Alta y baja de partidas en {@link GestorPartidas} con varios hilos a la vez:
+ * crear, entrar dos jugadores, apuntarlos en el índice por nombre y eliminar
+ * la partida. {@code java -jar target/benchmarks.jar GestorBench -t 1}
+ * (y -t 4, 16, 64).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dtrivial.log=WARN")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class GestorBench {
+
+    @State(Scope.Thread)
+    public static class Hilo {
+        String prefijo;
+        int serie;
+
+        @Setup
+        public void preparar(ThreadParams hilo) {
+            prefijo = "h" + hilo.getThreadIndex() + "-";
+        }
+    }
+
+    @Benchmark
+    public String altaYBaja(Hilo hilo) {
+        GestorPartidas gestor = GestorPartidas.getInstance();
+        // 1024 nombres por hilo: el índice reutiliza sus claves en vez de crecer
+        int n = hilo.serie++ & 1023;
+        String codigo = gestor.crearPartida();
+        Partida partida = gestor.obtenerPartida(codigo);
+        JugadorPartida primero = new JugadorPartida(hilo.prefijo + "a" + n);
+        JugadorPartida segundo = new JugadorPartida(hilo.prefijo + "b" + n);
+        partida.agregarJugador(primero, true);
+        partida.agregarJugador(segundo, false);
+        gestor.registrarJugadorEnPartida(primero.getNombre(), codigo);
+        gestor.registrarJugadorEnPartida(segundo.getNombre(), codigo);
+        gestor.eliminarPartida(codigo);
+        // sin empezar no pasa por el historial; solo saca a los dos de la clasificación
+        partida.finalizarPartida();
+        return codigo;
+    }
+}
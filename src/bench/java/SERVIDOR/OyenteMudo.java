@@ -0,0 +1,51 @@
+package SERVIDOR;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Oyente de los benchmarks: no envía nada a nadie, solo cuenta las rondas que
+ * se abren. La primera ronda la abre el {@link Planificador} después de
+ * comenzar, así que quien quiera responder tiene que esperarla.
+ */
+class OyenteMudo implements OyentePartida {
+    private final CountDownLatch rondas;
+
+    OyenteMudo(int rondasEsperadas) {
+        this.rondas = new CountDownLatch(rondasEsperadas);
+    }
+
+    /** Partida con el máximo de jugadores; al entrar el último arranca sola. */
+    static Partida llena(String codigo, OyentePartida oyente) {
+        Partida partida = new Partida(codigo);
+        partida.agregarOyente(oyente);
+        for (int i = 0; i < Partida.MAX_JUGADORES; i++) {
+            partida.agregarJugador(new JugadorPartida(codigo + "-" + i), i == 0);
+        }
+        return partida;
+    }
+
+    void esperarRondas() throws InterruptedException {
+        if (!rondas.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Quedan " + rondas.getCount() + " rondas sin abrir");
+        }
+    }
+
+    @Override
+    public void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos) {
+        rondas.countDown();
+    }
+
+    @Override
+    public void respuestaRegistrada(JugadorPartida jugador, int jugadoresSinResponder) {
+    }
+
+    @Override
+    public void rondaFinalizada(Clasificacion clasificacion, List<JugadorPartida> sinResponder) {
+    }
+
+    @Override
+    public void partidaFinalizada(Clasificacion clasificacion) {
+    }
+}
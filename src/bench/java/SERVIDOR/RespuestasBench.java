@@ -0,0 +1,119 @@
+package SERVIDOR;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+/**
+ * {@link Partida#registrarRespuesta} con varios hilos. Se lanza una vez por
+ * número de hilos: {@code java -jar target/benchmarks.jar RespuestasBench -t 1}
+ * (y -t 4, 8, 16, 32, 64).
+ *
+ * "aceptadas" mide respuestas que cuentan: cada hilo contesta las cuatro de
+ * sus propias partidas, ya en la primera ronda, y como una respuesta aceptada
+ * no se puede repetir las partidas se rehacen en cada iteración.
+ * "repetidas" mide el camino que las rechaza, con todos los hilos sobre una
+ * sola partida en la que tres de los cuatro jugadores ya han respondido.
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Dtrivial.log=WARN", "-Dtrivial.datos=target/bench-datos"})
+@Warmup(iterations = 5)
+@Measurement(iterations = 15)
+public class RespuestasBench {
+    private static final int PARTIDAS_POR_HILO = 1_000;
+    private static final int RESPUESTAS_POR_HILO = PARTIDAS_POR_HILO * Partida.MAX_JUGADORES;
+    private static final String[] OPCIONES = {"A", "B", "C", "D"};
+
+    @State(Scope.Thread)
+    public static class Lote {
+        Partida[] partidas;
+        JugadorPartida[] jugadores;
+        String[] respuestas;
+
+        @Setup(Level.Iteration)
+        public void preparar(ThreadParams hilo) throws InterruptedException {
+            OyenteMudo oyente = new OyenteMudo(PARTIDAS_POR_HILO);
+            partidas = new Partida[PARTIDAS_POR_HILO];
+            jugadores = new JugadorPartida[RESPUESTAS_POR_HILO];
+            respuestas = new String[RESPUESTAS_POR_HILO];
+            for (int p = 0; p < partidas.length; p++) {
+                partidas[p] = OyenteMudo.llena("H" + hilo.getThreadIndex() + "P" + p, oyente);
+                List<JugadorPartida> suyos = partidas[p].getJugadores();
+                for (int j = 0; j < suyos.size(); j++) {
+                    int i = p * Partida.MAX_JUGADORES + j;
+                    jugadores[i] = suyos.get(j);
+                    respuestas[i] = OPCIONES[i % OPCIONES.length];
+                }
+            }
+            oyente.esperarRondas();
+        }
+
+        @TearDown(Level.Iteration)
+        public void terminar() {
+            for (Partida partida : partidas) {
+                partida.finalizarPartida();
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PartidaCaliente {
+        Partida partida;
+        JugadorPartida[] respondidos;
+
+        @Setup(Level.Iteration)
+        public void preparar() throws InterruptedException {
+            OyenteMudo oyente = new OyenteMudo(1);
+            partida = OyenteMudo.llena("CAL", oyente);
+            oyente.esperarRondas();
+            // el cuarto no responde: así la ronda sigue abierta
+            List<JugadorPartida> jugadores = partida.getJugadores();
+            respondidos = jugadores.subList(0, Partida.MAX_JUGADORES - 1).toArray(new JugadorPartida[0]);
+            for (JugadorPartida jugador : respondidos) {
+                partida.registrarRespuesta(jugador, "A");
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void terminar() {
+            partida.finalizarPartida();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OperationsPerInvocation(RESPUESTAS_POR_HILO)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int aceptadas(Lote lote) {
+        int aceptadas = 0;
+        for (int i = 0; i < RESPUESTAS_POR_HILO; i++) {
+            if (lote.partidas[i / Partida.MAX_JUGADORES].registrarRespuesta(lote.jugadores[i], lote.respuestas[i])) {
+                aceptadas++;
+            }
+        }
+        if (aceptadas != RESPUESTAS_POR_HILO) {
+            throw new IllegalStateException("Aceptadas " + aceptadas + " de " + RESPUESTAS_POR_HILO);
+        }
+        return aceptadas;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public boolean repetidas(PartidaCaliente caliente, ThreadParams hilo) {
+        JugadorPartida jugador = caliente.respondidos[hilo.getThreadIndex() % caliente.respondidos.length];
+        return caliente.partida.registrarRespuesta(jugador, "A");
+    }
+}
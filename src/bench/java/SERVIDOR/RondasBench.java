@@ -0,0 +1,70 @@
+package SERVIDOR;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rondas completas por segundo según el nivel del {@link Registro}: DEBUG lo
+ * escribe todo, INFO es el de por defecto y con ERROR la ruta de juego no
+ * registra nada. Una ronda es crear la partida, que entren los cuatro,
+ * esperar a que se abra la primera ronda y que respondan todos, con lo que
+ * se cierra. {@code java -jar target/benchmarks.jar RondasBench -t 1} (y -t 4).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Dtrivial.datos=target/bench-datos")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RondasBench {
+    private static final String[] OPCIONES = {"A", "B", "C", "D"};
+
+    @Param({"DEBUG", "INFO", "ERROR"})
+    public String nivel;
+
+    private final AtomicLong serie = new AtomicLong();
+    // se terminan al acabar la iteración, fuera de la medida
+    private final Queue<Partida> jugadas = new ConcurrentLinkedQueue<>();
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Registro.setNivel(Registro.Nivel.valueOf(nivel));
+        GestorPreguntas.getInstance().getBanco();
+    }
+
+    @TearDown(Level.Iteration)
+    public void terminar() {
+        Partida partida;
+        while ((partida = jugadas.poll()) != null) {
+            partida.finalizarPartida();
+        }
+    }
+
+    @Benchmark
+    public Partida ronda() throws InterruptedException {
+        OyenteMudo oyente = new OyenteMudo(1);
+        Partida partida = OyenteMudo.llena("R" + serie.incrementAndGet(), oyente);
+        oyente.esperarRondas();
+        int i = 0;
+        for (JugadorPartida jugador : partida.getJugadores()) {
+            partida.registrarRespuesta(jugador, OPCIONES[i++]);
+        }
+        jugadas.add(partida);
+        return partida;
+    }
+}
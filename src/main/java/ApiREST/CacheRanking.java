@@ -0,0 +1,74 @@
+package ApiREST;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Respuestas ya construidas de los endpoints de ranking.
+ *
+ * Cada entrada guarda el ETag con el que se construyó; el ETag sale de los
+ * contadores de versión de la partida o de la clasificación, así que si no ha
+ * cambiado nada se reutiliza el cuerpo tal cual. Además caduca a los
+ * {@code trivial.ranking.cache.ttl-ms} milisegundos y, por encima de
+ * {@code trivial.ranking.cache.max-entradas}, se expulsa la menos usada.
+ */
+@Component
+public class CacheRanking {
+
+    private final long ttlMs;
+    private final Map<String, Entrada> entradas;
+
+    public CacheRanking(@Value("${trivial.ranking.cache.ttl-ms:2000}") long ttlMs,
+                        @Value("${trivial.ranking.cache.max-entradas:1000}") int maxEntradas) {
+        this.ttlMs = ttlMs;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+
+    private static final class Entrada {
+        final String etag;
+        final Object cuerpo;
+        final long creada;
+
+        Entrada(String etag, Object cuerpo) {
+            this.etag = etag;
+            this.cuerpo = cuerpo;
+            this.creada = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Devuelve el cuerpo guardado para la clave si se construyó con el mismo
+     * ETag y no ha caducado; si no, lo construye y lo guarda.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(String clave, String etag, Supplier<T> construir) {
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            Entrada entrada = entradas.get(clave);
+            if (entrada != null && entrada.etag.equals(etag) && ahora - entrada.creada < ttlMs) {
+                return (T) entrada.cuerpo;
+            }
+        }
+        // se construye fuera del cerrojo; si dos peticiones coinciden, gana la última
+        T cuerpo = construir.get();
+        synchronized (entradas) {
+            entradas.put(clave, new Entrada(etag, cuerpo));
+        }
+        return cuerpo;
+    }
+
+    public int size() {
+        synchronized (entradas) {
+            return entradas.size();
+        }
+    }
+}
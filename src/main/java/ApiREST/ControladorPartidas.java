@@ -0,0 +1,26 @@
+package ApiREST;
+
+import SERVIDOR.GestorPartidas;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Estado del registro de partidas: cuántas hay y cuánto ha recogido la
+ * limpieza periódica desde el arranque.
+ */
+@RestController
+@RequestMapping("/api/partidas")
+@CrossOrigin(origins = "*")
+public class ControladorPartidas {
+
+    private final GestorPartidas gestorPartidas;
+
+    public ControladorPartidas(GestorPartidas gestorPartidas) {
+        this.gestorPartidas = gestorPartidas;
+    }
+
+    @GetMapping("/metricas")
+    public ResponseEntity<GestorPartidas.MetricasLimpieza> getMetricas() {
+        return ResponseEntity.ok(gestorPartidas.getMetricas());
+    }
+}
@@ -1,116 +1,227 @@
-
 package ApiREST;
 
 
+import SERVIDOR.ClasificacionGlobal;
 import SERVIDOR.GestorPartidas;
+import SERVIDOR.HistorialJugadores;
 import SERVIDOR.JugadorPartida;
 import SERVIDOR.Partida;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Supplier;
 
+/**
+ * Endpoints de ranking. Cada respuesta lleva un ETag derivado de los
+ * contadores de versión de lo que muestra: si el cliente envía el mismo en
+ * If-None-Match se contesta 304 sin construir nada, y si no, el cuerpo se toma
+ * de {@link CacheRanking} mientras esa versión siga vigente.
+ */
 @RestController
 @RequestMapping("/api/ranking")
 @CrossOrigin(origins = "*")
 public class ControladorRanking {
 
+    private static final int TAMANO_PAGINA_MAXIMO = 500;
+    // distingue los ETag de cada arranque, ya que los contadores empiezan de cero
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), 36);
+
+    private final GestorPartidas gestorPartidas;
+    private final ClasificacionGlobal clasificacion;
+    private final HistorialJugadores historial;
+    private final CacheRanking cache;
+    private final ObjectMapper mapper;
+
+    public ControladorRanking(GestorPartidas gestorPartidas, ClasificacionGlobal clasificacion,
+                              HistorialJugadores historial, CacheRanking cache, ObjectMapper mapper) {
+        this.gestorPartidas = gestorPartidas;
+        this.clasificacion = clasificacion;
+        this.historial = historial;
+        this.cache = cache;
+        this.mapper = mapper;
+    }
+
+    private static String etag(String tipo, long... versiones) {
+        StringBuilder etag = new StringBuilder("\"").append(ARRANQUE).append('-').append(tipo);
+        for (long version : versiones) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    private static boolean coincide(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            candidato = candidato.trim();
+            if (candidato.startsWith("W/")) {
+                candidato = candidato.substring(2);
+            }
+            if (candidato.equals("*") || candidato.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * La caché guarda el JSON ya serializado, de modo que mientras no cambie
+     * la versión las peticiones se contestan copiando bytes.
+     */
+    private ResponseEntity<byte[]> responder(String ifNoneMatch, String etag, String clave, Supplier<?> construir) {
+        if (coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        byte[] cuerpo = cache.obtener(clave, etag, () -> serializar(construir.get()));
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(cuerpo);
+    }
+
+    private byte[] serializar(Object cuerpo) {
+        try {
+            return mapper.writeValueAsBytes(cuerpo);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @GetMapping("/global")
-    public ResponseEntity<List<Map<String, Object>>> getRankingGlobal() {
-        List<Map<String, Object>> rankingGlobal = new ArrayList<>();
-        
-        for (Partida partida : GestorPartidas.getInstance().getPartidasActivas()) {
-            List<JugadorPartida> jugadores = partida.obtenerRanking();
-            for (JugadorPartida jugador : jugadores) {
-                Map<String, Object> jugadorInfo = new HashMap<>();
-                jugadorInfo.put("nombre", jugador.getNombre());
-                jugadorInfo.put("puntuacion", jugador.getPuntuacionTotal());
-                jugadorInfo.put("partidaId", partida.getCodigo());
-                rankingGlobal.add(jugadorInfo);
+    public ResponseEntity<byte[]> getRankingGlobal(
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "100") int tamano,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (pagina < 0 || tamano <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int tamanoPagina = Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+        String etag = etag("g", clasificacion.getVersion(), pagina, tamanoPagina);
+        ResponseEntity<byte[]> respuesta = responder(ifNoneMatch, etag,
+                "global:" + pagina + ":" + tamanoPagina, () -> {
+            List<RespuestasRanking.FilaGlobal> rankingGlobal = new ArrayList<>(tamanoPagina);
+            long posicion = (long) pagina * tamanoPagina;
+            for (ClasificacionGlobal.Entrada entrada : clasificacion.pagina(pagina, tamanoPagina)) {
+                rankingGlobal.add(new RespuestasRanking.FilaGlobal(entrada.getNombre(), entrada.getPuntos(),
+                        entrada.getCodigoPartida(), ++posicion));
+            }
+            return rankingGlobal;
+        });
+        return ResponseEntity.status(respuesta.getStatusCode())
+                .headers(respuesta.getHeaders())
+                .header("X-Total-Count", String.valueOf(clasificacion.size()))
+                .body(respuesta.getBody());
+    }
+
+    /**
+     * Clasificación completa sin paginar. Se escribe en streaming directamente
+     * desde el skip list con un {@link JsonGenerator}: no se construye ninguna
+     * lista ni se cachea, así que la memoria no crece con el número de filas.
+     */
+    @GetMapping("/global/completo")
+    public ResponseEntity<StreamingResponseBody> getRankingGlobalCompleto(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = etag("c", clasificacion.getVersion());
+        if (coincide(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        StreamingResponseBody cuerpo = salida -> {
+            try (JsonGenerator generador = mapper.getFactory().createGenerator(salida)) {
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generador.writeStartArray();
+                long posicion = 0;
+                for (ClasificacionGlobal.Entrada entrada : clasificacion.todas()) {
+                    generador.writeStartObject();
+                    generador.writeStringField("nombre", entrada.getNombre());
+                    generador.writeNumberField("puntuacion", entrada.getPuntos());
+                    generador.writeStringField("partidaId", entrada.getCodigoPartida());
+                    generador.writeNumberField("posicion", ++posicion);
+                    generador.writeEndObject();
+                }
+                generador.writeEndArray();
             }
-        }        
-        return ResponseEntity.ok(rankingGlobal);
+        };
+        return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(cuerpo);
     }
 
     @GetMapping("/partida/{codigo}")
-    public ResponseEntity<List<Map<String, Object>>> getRankingPartida(@PathVariable String codigo) {
-        Partida partida = GestorPartidas.getInstance().obtenerPartida(codigo);
-        
+    public ResponseEntity<byte[]> getRankingPartida(
+            @PathVariable String codigo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Partida partida = gestorPartidas.obtenerPartida(codigo);
+
         if (partida == null) {
             return ResponseEntity.notFound().build();
         }
 
-        List<Map<String, Object>> rankingPartida = new ArrayList<>();
-        List<JugadorPartida> jugadores = partida.obtenerRanking();
-        
-        for (JugadorPartida jugador : jugadores) {
-            Map<String, Object> jugadorInfo = new HashMap<>();
-            jugadorInfo.put("nombre", jugador.getNombre());
-            jugadorInfo.put("puntuacion", jugador.getPuntuacionTotal());
-            jugadorInfo.put("posicion", rankingPartida.size() + 1);
-            rankingPartida.add(jugadorInfo);
-        }
-        
-        return ResponseEntity.ok(rankingPartida);
+        String etag = etag("p", partida.getVersionRanking());
+        return responder(ifNoneMatch, etag, "partida:" + codigo, () -> {
+            List<JugadorPartida> ranking = partida.obtenerRanking();
+            List<RespuestasRanking.FilaPartida> rankingPartida = new ArrayList<>(ranking.size());
+            for (JugadorPartida jugador : ranking) {
+                rankingPartida.add(new RespuestasRanking.FilaPartida(jugador.getNombre(),
+                        jugador.getPuntuacionTotal(), rankingPartida.size() + 1));
+            }
+            return rankingPartida;
+        });
     }
 
     @GetMapping("/jugador/{nombre}")
-    public ResponseEntity<Map<String, Object>> getEstadisticasJugador(@PathVariable String nombre) {
-        Map<String, Object> estadisticas = new HashMap<>();
-        int partidasJugadas = 0;
-        int puntuacionTotal = 0;
-        int mejorPuntuacion = 0;
-        
-        for (Partida partida : GestorPartidas.getInstance().getPartidasActivas()) {
-            for (JugadorPartida jugador : partida.getJugadores()) {
-                if (jugador.getNombre().equalsIgnoreCase(nombre)) {
-                    partidasJugadas++;
-                    puntuacionTotal += jugador.getPuntuacionTotal();
-                    mejorPuntuacion = Math.max(mejorPuntuacion, jugador.getPuntuacionTotal());
-                }
-            }
-        }
-        
-        if (partidasJugadas == 0) {
+    public ResponseEntity<byte[]> getEstadisticasJugador(
+            @PathVariable String nombre,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // partidas terminadas (historial en disco) más las que siguen en juego
+        HistorialJugadores.Estadisticas terminadas = historial.estadisticas(nombre);
+        ClasificacionGlobal.Resumen enJuego = clasificacion.estadisticas(nombre);
+
+        if (terminadas == null && enJuego == null) {
             return ResponseEntity.notFound().build();
         }
 
-        estadisticas.put("nombre", nombre);
-        estadisticas.put("partidasJugadas", partidasJugadas);
-        estadisticas.put("puntuacionTotal", puntuacionTotal);
-        estadisticas.put("puntuacionMedia", puntuacionTotal / (double) partidasJugadas);
-        estadisticas.put("mejorPuntuacion", mejorPuntuacion);
-        
-        return ResponseEntity.ok(estadisticas);
+        // el historial de un nombre solo cambia al sumar partidas, así que su número sirve de versión
+        String etag = etag("j", terminadas != null ? terminadas.getPartidasJugadas() : 0,
+                enJuego != null ? enJuego.getVersion() : 0);
+        return responder(ifNoneMatch, etag, "jugador:" + nombre, () -> {
+            int partidasJugadas = 0;
+            long puntuacionTotal = 0;
+            int mejorPuntuacion = 0;
+            if (terminadas != null) {
+                partidasJugadas += terminadas.getPartidasJugadas();
+                puntuacionTotal += terminadas.getPuntuacionTotal();
+                mejorPuntuacion = terminadas.getMejorPuntuacion();
+            }
+            if (enJuego != null) {
+                partidasJugadas += enJuego.getPartidasJugadas();
+                puntuacionTotal += enJuego.getPuntuacionTotal();
+                mejorPuntuacion = Math.max(mejorPuntuacion, enJuego.getMejorPuntuacion());
+            }
+
+            return new RespuestasRanking.EstadisticasJugador(nombre, partidasJugadas, puntuacionTotal,
+                    puntuacionTotal / (double) partidasJugadas, mejorPuntuacion);
+        });
     }
 
     @GetMapping("/top/{n}")
-    public ResponseEntity<List<Map<String, Object>>> getTopJugadores(@PathVariable int n) {
-        Map<String, Integer> mejoresPuntuaciones = new HashMap<>();
-        
-        for (Partida partida : GestorPartidas.getInstance().getPartidasActivas()) {
-            for (JugadorPartida jugador : partida.getJugadores()) {
-                mejoresPuntuaciones.merge(jugador.getNombre(), 
-                                        jugador.getPuntuacionTotal(), 
-                                        Integer::max);
+    public ResponseEntity<byte[]> getTopJugadores(
+            @PathVariable int n,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        int limite = Math.min(n, TAMANO_PAGINA_MAXIMO);
+        String etag = etag("t", clasificacion.getVersion(), limite);
+        return responder(ifNoneMatch, etag, "top:" + limite, () -> {
+            List<ClasificacionGlobal.Entrada> top = clasificacion.top(limite);
+            List<RespuestasRanking.MejorJugador> topJugadores = new ArrayList<>(top.size());
+            for (ClasificacionGlobal.Entrada entrada : top) {
+                topJugadores.add(new RespuestasRanking.MejorJugador(entrada.getNombre(), entrada.getPuntos()));
             }
-        }
-
-        List<Map<String, Object>> topJugadores = new ArrayList<>();
-        mejoresPuntuaciones.entrySet().stream()
-            .sorted((e1, e2) -> e2.getValue().compareTo(e1.getValue()))
-            .limit(n)
-            .forEach(entry -> {
-                Map<String, Object> jugadorInfo = new HashMap<>();
-                jugadorInfo.put("nombre", entry.getKey());
-                jugadorInfo.put("mejorPuntuacion", entry.getValue());
-                topJugadores.add(jugadorInfo);
-            });
-        
-        return ResponseEntity.ok(topJugadores);
+            return topJugadores;
+        });
     }
 }
-
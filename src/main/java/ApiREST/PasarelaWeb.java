@@ -0,0 +1,56 @@
+package ApiREST;
+
+import SERVIDOR.GestorPartidas;
+import SERVIDOR.PasarelaWebSocket;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.ServletContextAware;
+
+import javax.servlet.ServletContext;
+import javax.websocket.DeploymentException;
+import javax.websocket.server.ServerContainer;
+
+/**
+ * Publica {@link PasarelaWebSocket} en el servidor web de la API, en
+ * {@code ws://<host>:<server.port>/ws/trivial}, con el {@link GestorPartidas}
+ * del contexto: los jugadores del navegador entran en las mismas partidas que
+ * los de TCP. Con {@code trivial.websocket.activo=false} no se publica.
+ */
+@Component
+@Lazy(false)
+public class PasarelaWeb implements ServletContextAware, SmartInitializingSingleton {
+
+    private final GestorPartidas gestorPartidas;
+    private final boolean activo;
+    private ServletContext contexto;
+
+    public PasarelaWeb(GestorPartidas gestorPartidas,
+                       @Value("${trivial.websocket.activo:true}") boolean activo) {
+        this.gestorPartidas = gestorPartidas;
+        this.activo = activo;
+    }
+
+    @Override
+    public void setServletContext(ServletContext contexto) {
+        this.contexto = contexto;
+    }
+
+    // el contenedor de WebSocket existe cuando el servidor web ya ha arrancado
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!activo) {
+            return;
+        }
+        ServerContainer contenedor = (ServerContainer) contexto.getAttribute(ServerContainer.class.getName());
+        if (contenedor == null) {
+            throw new IllegalStateException("El servidor web no admite WebSocket");
+        }
+        try {
+            PasarelaWebSocket.registrar(contenedor, gestorPartidas);
+        } catch (DeploymentException e) {
+            throw new IllegalStateException("No se pudo publicar la pasarela WebSocket", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ApiREST;
+
+/**
+ * Cuerpos de respuesta de {@link ControladorRanking}. Son records inmutables:
+ * Jackson los serializa por sus componentes, sin mapas intermedios ni
+ * boxing de cada número.
+ */
+public final class RespuestasRanking {
+
+    private RespuestasRanking() {
+    }
+
+    public record FilaGlobal(String nombre, int puntuacion, String partidaId, long posicion) {
+    }
+
+    public record FilaPartida(String nombre, int puntuacion, int posicion) {
+    }
+
+    public record EstadisticasJugador(String nombre, int partidasJugadas, long puntuacionTotal,
+                                      double puntuacionMedia, int mejorPuntuacion) {
+    }
+
+    public record MejorJugador(String nombre, int mejorPuntuacion) {
+    }
+}
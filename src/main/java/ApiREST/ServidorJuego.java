@@ -0,0 +1,81 @@
+package ApiREST;
+
+import SERVIDOR.GestorPartidas;
+import SERVIDOR.ServidorNIO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Arranca el servidor de juego por sockets dentro del mismo proceso que la API
+ * REST, con el {@link GestorPartidas} del contexto, de modo que el ranking ve
+ * las partidas que se juegan en el puerto de juego. Con
+ * {@code trivial.juego.activo=false} se levanta solo la API.
+ */
+@Component
+@Lazy(false)
+public class ServidorJuego implements SmartLifecycle {
+
+    // lo que se espera al hilo aceptador al parar
+    private static final long ESPERA_PARADA_S = 5;
+
+    private final GestorPartidas gestorPartidas;
+    private final int puerto;
+    private final boolean activo;
+    private volatile ServidorNIO servidor;
+    private volatile Thread aceptador;
+
+    public ServidorJuego(GestorPartidas gestorPartidas,
+                         @Value("${trivial.juego.puerto:5000}") int puerto,
+                         @Value("${trivial.juego.activo:true}") boolean activo) {
+        this.gestorPartidas = gestorPartidas;
+        this.puerto = puerto;
+        this.activo = activo;
+    }
+
+    @Override
+    public void start() {
+        if (!activo) {
+            return;
+        }
+        ServidorNIO nuevo;
+        try {
+            nuevo = new ServidorNIO(puerto, gestorPartidas);
+            // el puerto se abre aquí para que un fallo haga fallar el arranque
+            nuevo.abrir();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el puerto de juego " + puerto, e);
+        }
+        Thread hilo = new Thread(nuevo::aceptarConexiones, "servidor-juego");
+        hilo.setDaemon(true);
+        hilo.start();
+        aceptador = hilo;
+        servidor = nuevo;
+    }
+
+    @Override
+    public void stop() {
+        ServidorNIO actual = servidor;
+        if (actual == null) {
+            return;
+        }
+        actual.detener();
+        try {
+            aceptador.join(TimeUnit.SECONDS.toMillis(ESPERA_PARADA_S));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        servidor = null;
+        aceptador = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return servidor != null;
+    }
+}
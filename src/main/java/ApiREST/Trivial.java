@@ -1,12 +1,36 @@
-
 package ApiREST;
 
+import SERVIDOR.ClasificacionGlobal;
+import SERVIDOR.GestorPartidas;
+import SERVIDOR.HistorialJugadores;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
 
+/**
+ * Lanzador único: levanta la API REST y, con {@link ServidorJuego}, el servidor
+ * de juego en el mismo proceso, compartiendo el registro de partidas.
+ */
 @SpringBootApplication
 public class Trivial {
     public static void main(String[] args) {
         SpringApplication.run(Trivial.class, args);
     }
-}
\ No newline at end of file
+
+    // la misma instancia que usa el resto del servidor: un solo registro,
+    // una sola cola de partida rápida y una sola limpieza
+    @Bean(initMethod = "iniciarLimpieza", destroyMethod = "detenerLimpieza")
+    public GestorPartidas gestorPartidas() {
+        return GestorPartidas.getInstance();
+    }
+
+    @Bean
+    public ClasificacionGlobal clasificacionGlobal() {
+        return ClasificacionGlobal.getInstance();
+    }
+
+    @Bean
+    public HistorialJugadores historialJugadores() {
+        return HistorialJugadores.getInstance();
+    }
+}
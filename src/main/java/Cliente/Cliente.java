@@ -6,8 +6,8 @@ import java.io.*;
 import java.util.Scanner;
 
 public class Cliente {
-    private static final String HOST = "localhost";
-    private static final int PUERTO = 5000;
+    static final String HOST = "localhost";
+    static final int PUERTO = 5000;
     private final Scanner scanner;
     private Socket socket;
     private PrintWriter out;
@@ -88,7 +88,12 @@ public class Cliente {
         }
     }
 
+    /** Con el argumento {@code binario} se usa {@link ClienteBinario}. */
     public static void main(String[] args) {
-        new Cliente().iniciar();
+        if (args.length > 0 && args[0].equals("binario")) {
+            new ClienteBinario().iniciar();
+        } else {
+            new Cliente().iniciar();
+        }
     }
 }
\ No newline at end of file
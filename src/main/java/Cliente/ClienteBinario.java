@@ -0,0 +1,359 @@
+package Cliente;
+
+import SERVIDOR.ProtocoloBinario;
+import SERVIDOR.SalidaCliente;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static SERVIDOR.ProtocoloBinario.*;
+
+/**
+ * Cliente de consola sobre {@link ProtocoloBinario}. Los textos los pone el
+ * propio cliente a partir de las tramas, así que lo que se ve es lo mismo que
+ * con {@link Cliente}. Se arranca con {@code Cliente binario}.
+ */
+public class ClienteBinario {
+    private enum Estado { MENU, COLA, SALA, SALA_CREADOR, JUEGO }
+
+    private final Scanner scanner;
+    private Socket socket;
+    private DataInputStream in;
+    private OutputStream out;
+    private volatile boolean conectado;
+    private volatile Estado estado = Estado.MENU;
+    private final Map<Integer, String> nombres = new ConcurrentHashMap<>();
+
+    public ClienteBinario() {
+        this.scanner = new Scanner(System.in);
+    }
+
+    public void iniciar() {
+        try {
+            socket = new Socket(Cliente.HOST, Cliente.PUERTO);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = socket.getOutputStream();
+            negociar();
+            conectado = true;
+
+            Thread receptorMensajes = new Thread(this::recibirMensajes);
+            receptorMensajes.setDaemon(true);
+            receptorMensajes.start();
+
+            Thread enviadorMensajes = new Thread(this::enviarMensajes);
+            enviadorMensajes.start();
+        } catch (IOException e) {
+            System.err.println("Error al conectar con el servidor: " + e.getMessage());
+        }
+    }
+
+    private void negociar() throws IOException {
+        out.write((NEGOCIACION + "\n").getBytes(StandardCharsets.UTF_8));
+        // el menú de texto que el servidor manda al conectar se descarta
+        String linea;
+        do {
+            linea = leerLineaTexto();
+            if (linea == null) {
+                throw new EOFException("El servidor cerró la conexión");
+            }
+        } while (!linea.equals(CONFIRMACION));
+    }
+
+    private String leerLineaTexto() throws IOException {
+        ByteArrayOutputStream linea = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return null;
+            }
+            if (b != '\r') {
+                linea.write(b);
+            }
+        }
+        return linea.toString(StandardCharsets.UTF_8);
+    }
+
+    // --- Recepción ---
+
+    private void recibirMensajes() {
+        try {
+            while (conectado) {
+                byte[] trama = new byte[in.readUnsignedShort()];
+                in.readFully(trama);
+                DataInputStream carga = new DataInputStream(new ByteArrayInputStream(trama));
+                if (!mostrar(carga.readUnsignedByte(), carga)) {
+                    conectado = false;
+                }
+            }
+        } catch (EOFException e) {
+            conectado = false;
+        } catch (IOException e) {
+            if (conectado) {
+                System.err.println("Error al recibir mensajes: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Muestra una trama; devuelve false cuando el servidor se despide. */
+    private boolean mostrar(int opcode, DataInputStream carga) throws IOException {
+        switch (opcode) {
+            case MENU:
+                estado = Estado.MENU;
+                nombres.clear();
+                System.out.println("=== TRIVIAL MULTIJUGADOR ===");
+                System.out.println("1. Crear partida");
+                System.out.println("2. Unirse a partida");
+                System.out.println("3. Salir");
+                System.out.println("4. Partida rápida");
+                System.out.println("Seleccione una opción:");
+                break;
+            case PARTIDA_CREADA:
+                estado = Estado.SALA_CREADOR;
+                System.out.println("Partida creada con código: " + carga.readUTF());
+                System.out.println("\nPartida creada. Esperando que se unan jugadores...");
+                break;
+            case UNIDO:
+                // si éramos el cuarto jugador la partida ya ha empezado
+                if (estado == Estado.MENU) {
+                    estado = Estado.SALA;
+                }
+                System.out.println("\nTe has unido a la partida " + carga.readUTF() + ".");
+                break;
+            case EN_COLA:
+                estado = Estado.COLA;
+                System.out.println("\nBuscando rivales. La partida empezará en cuanto haya jugadores suficientes...");
+                break;
+            case EMPAREJADO:
+                System.out.println("\nPartida encontrada: " + carga.readUTF());
+                break;
+            case JUGADOR:
+                int numero = carga.readUnsignedByte();
+                nombres.put(numero, carga.readUTF());
+                break;
+            case SALA:
+                System.out.println("\n=== MENÚ DE INICIO ===");
+                System.out.println("Jugadores conectados: " + carga.readUnsignedByte());
+                System.out.println("1. Comenzar partida");
+                System.out.println("2. Seguir esperando");
+                System.out.println("Seleccione una opción:");
+                break;
+            case JUGADOR_SALIO:
+                System.out.println("\n" + nombre(carga.readUnsignedByte()) + " ha abandonado la partida.");
+                break;
+            case INICIO:
+                estado = Estado.JUEGO;
+                System.out.println("\n¡La partida comienza!");
+                break;
+            case PREGUNTA:
+                mostrarPregunta(carga);
+                break;
+            case RESPUESTA_REGISTRADA:
+                System.out.println("\nRespuesta registrada. Esperando a que respondan los demás jugadores...");
+                break;
+            case PENDIENTES:
+                System.out.println("Faltan " + carga.readUnsignedByte() + " jugadores por responder...");
+                break;
+            case RESULTADO_RONDA:
+                int ronda = carga.readUnsignedByte();
+                boolean quedanRondas = carga.readBoolean();
+                System.out.println("\n=== RESULTADOS DE LA RONDA " + ronda + " ===");
+                int jugadores = carga.readUnsignedByte();
+                for (int i = 0; i < jugadores; i++) {
+                    System.out.println(nombre(carga.readUnsignedByte()) + ": " + carga.readInt() + " puntos");
+                }
+                if (quedanRondas) {
+                    System.out.println("\nPreparando siguiente ronda...");
+                }
+                break;
+            case TIEMPO_AGOTADO:
+                System.out.println("\n¡Tiempo agotado!");
+                break;
+            case RESULTADO_FINAL:
+                mostrarResultadosFinales(carga);
+                break;
+            case CANCELADA:
+                System.out.println("\nLa partida se ha cancelado por inactividad.");
+                break;
+            case AVISO:
+                SalidaCliente.Aviso aviso = SalidaCliente.Aviso.deCodigo(carga.readUnsignedByte());
+                if (aviso != null) {
+                    System.out.println(aviso.getTexto());
+                }
+                break;
+            case ADIOS:
+                System.out.println("Conexión cerrada. ¡Hasta pronto!");
+                return false;
+            default:
+                // tramas de versiones posteriores: se ignoran
+        }
+        return true;
+    }
+
+    private void mostrarPregunta(DataInputStream carga) throws IOException {
+        int ronda = carga.readUnsignedByte();
+        int totalRondas = carga.readUnsignedByte();
+        int segundos = carga.readUnsignedShort();
+        carga.readInt(); // id de la pregunta
+        String enunciado = carga.readUTF();
+        String codigo = carga.readUTF();
+
+        System.out.println("\n=== RONDA " + ronda + " DE " + totalRondas + " ===");
+        System.out.println("\nPregunta: " + enunciado);
+        if (!codigo.isEmpty()) {
+            System.out.println("\nCódigo:\n" + codigo);
+        }
+        int opciones = carga.readUnsignedByte();
+        for (int i = 0; i < opciones; i++) {
+            System.out.println((char) ('A' + i) + ") " + carga.readUTF());
+        }
+        System.out.println("\nTienes " + segundos + " segundos para responder.");
+        System.out.println("Escribe tu respuesta (A, B, C o D): ");
+    }
+
+    private void mostrarResultadosFinales(DataInputStream carga) throws IOException {
+        int jugadores = carga.readUnsignedByte();
+        String[] ranking = new String[jugadores];
+        int[] puntos = new int[jugadores];
+        for (int i = 0; i < jugadores; i++) {
+            ranking[i] = nombre(carga.readUnsignedByte());
+            puntos[i] = carga.readInt();
+        }
+        int ganadores = carga.readUnsignedByte();
+
+        System.out.println("\n=== RESULTADOS FINALES ===");
+        if (ganadores == 0) {
+            System.out.println("\n¡No hay ganador! Ningún jugador consiguió puntos.");
+        } else if (ganadores > 1) {
+            System.out.println("\n¡EMPATE entre los siguientes jugadores!");
+            for (int i = 0; i < ganadores; i++) {
+                System.out.println("- " + nombre(carga.readUnsignedByte()) + ": " + puntos[0] + " puntos");
+            }
+        } else {
+            System.out.println("\n ¡GANADOR: " + nombre(carga.readUnsignedByte()) + "!");
+            System.out.println("Puntuación: " + puntos[0] + " puntos");
+        }
+        System.out.println("\nRanking final:");
+        for (int i = 0; i < jugadores; i++) {
+            System.out.println((i + 1) + ". " + ranking[i] + ": " + puntos[i] + " puntos");
+        }
+        System.out.println("\n¡Gracias por jugar!");
+    }
+
+    private String nombre(int numero) {
+        return nombres.getOrDefault(numero, "Jugador " + numero);
+    }
+
+    // --- Envío ---
+
+    private void enviarMensajes() {
+        try {
+            while (conectado) {
+                String mensaje = scanner.nextLine().trim();
+                switch (estado) {
+                    case MENU:
+                        if (!opcionMenu(mensaje)) {
+                            return;
+                        }
+                        break;
+                    case SALA_CREADOR:
+                        if (mensaje.equals("1")) {
+                            enviar(COMENZAR);
+                        } else if (mensaje.equals("2")) {
+                            enviar(ESPERAR);
+                        } else {
+                            System.out.println("Opción no válida");
+                        }
+                        break;
+                    case COLA:
+                        if (mensaje.equals("3")) {
+                            // el servidor nos devuelve al menú
+                            enviar(SALIR);
+                            break;
+                        }
+                        System.out.println("Buscando rivales...");
+                        break;
+                    case SALA:
+                        System.out.println("Esperando a que el creador inicie la partida...");
+                        break;
+                    case JUEGO:
+                        if (mensaje.length() == 1 && Character.toUpperCase(mensaje.charAt(0)) >= 'A'
+                                && Character.toUpperCase(mensaje.charAt(0)) <= 'Z') {
+                            enviar(RESPONDER, Character.toUpperCase(mensaje.charAt(0)) - 'A');
+                        } else {
+                            System.out.println("Escribe tu respuesta (A, B, C o D): ");
+                        }
+                        break;
+                }
+            }
+        } catch (IOException | IllegalStateException | java.util.NoSuchElementException e) {
+            if (conectado) {
+                System.err.println("Error al enviar mensajes: " + e.getMessage());
+            }
+        } finally {
+            cerrarConexion();
+        }
+    }
+
+    /** Atiende una opción del menú principal; devuelve false si el usuario sale. */
+    private boolean opcionMenu(String opcion) throws IOException {
+        switch (opcion) {
+            case "1":
+                System.out.println("Introduce tu nombre:");
+                enviar(CREAR, scanner.nextLine());
+                return true;
+            case "2":
+                System.out.println("Introduce tu nombre:");
+                String nombre = scanner.nextLine();
+                System.out.println("Introduce el código de la partida:");
+                enviar(UNIRSE, nombre, scanner.nextLine().trim());
+                return true;
+            case "3":
+                enviar(SALIR);
+                conectado = false;
+                return false;
+            case "4":
+                System.out.println("Introduce tu nombre:");
+                enviar(PARTIDA_RAPIDA, scanner.nextLine());
+                return true;
+            default:
+                System.out.println("Opción no válida");
+                return true;
+        }
+    }
+
+    private void enviar(int opcode, String... cadenas) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream datos = new DataOutputStream(buffer);
+        datos.writeShort(0);
+        datos.writeByte(opcode);
+        for (String cadena : cadenas) {
+            datos.writeUTF(cadena);
+        }
+        enviarTrama(buffer.toByteArray());
+    }
+
+    private void enviar(int opcode, int valor) throws IOException {
+        enviarTrama(new byte[]{0, 0, (byte) opcode, (byte) valor});
+    }
+
+    private void enviarTrama(byte[] trama) throws IOException {
+        int longitud = trama.length - 2;
+        trama[0] = (byte) (longitud >>> 8);
+        trama[1] = (byte) longitud;
+        out.write(trama);
+    }
+
+    private void cerrarConexion() {
+        try {
+            conectado = false;
+            scanner.close();
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package SERVIDOR;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Conjunto inmutable de preguntas respaldado por un array, con índices por
+ * id y por categoría. Al ser inmutable se comparte entre todas las partidas
+ * sin copias, y elegir las preguntas de una partida solo reserva el resultado.
+ */
+public final class BancoPreguntas {
+    private static final int[] SIN_INDICES = new int[0];
+
+    private final Pregunta[] preguntas;
+    private final List<Pregunta> vista;
+    private final Map<Integer, Pregunta> porId;
+    private final Map<String, int[]> indicesPorCategoria;
+
+    public BancoPreguntas(List<Pregunta> preguntas) {
+        this.preguntas = preguntas.toArray(new Pregunta[0]);
+        this.vista = Collections.unmodifiableList(Arrays.asList(this.preguntas));
+
+        Map<Integer, Pregunta> ids = new HashMap<>();
+        Map<String, List<Integer>> categorias = new HashMap<>();
+        for (int i = 0; i < this.preguntas.length; i++) {
+            Pregunta pregunta = this.preguntas[i];
+            ids.put(pregunta.getId(), pregunta);
+            if (pregunta.getCategoria() != null) {
+                categorias.computeIfAbsent(pregunta.getCategoria(), k -> new ArrayList<>()).add(i);
+            }
+        }
+        this.porId = Map.copyOf(ids);
+
+        Map<String, int[]> indices = new HashMap<>();
+        categorias.forEach((categoria, lista) ->
+            indices.put(categoria, lista.stream().mapToInt(Integer::intValue).toArray()));
+        this.indicesPorCategoria = Map.copyOf(indices);
+    }
+
+    public int size() {
+        return preguntas.length;
+    }
+
+    public Pregunta get(int indice) {
+        return preguntas[indice];
+    }
+
+    public Pregunta porId(int id) {
+        return porId.get(id);
+    }
+
+    public Set<String> getCategorias() {
+        return indicesPorCategoria.keySet();
+    }
+
+    /** Vista de solo lectura sobre el array interno; no copia nada. */
+    public List<Pregunta> asList() {
+        return vista;
+    }
+
+    /** Elige {@code cantidad} preguntas distintas al azar entre todo el banco. */
+    public List<Pregunta> seleccionar(int cantidad) {
+        return muestrear(null, preguntas.length, cantidad);
+    }
+
+    /** Elige {@code cantidad} preguntas distintas al azar de una categoría. */
+    public List<Pregunta> seleccionar(String categoria, int cantidad) {
+        int[] indices = indicesPorCategoria.getOrDefault(categoria, SIN_INDICES);
+        return muestrear(indices, indices.length, cantidad);
+    }
+
+    /**
+     * Muestreo sin reemplazo de Floyd sobre posiciones 0..total-1: solo hace
+     * {@code cantidad} sorteos y no baraja ni copia el banco. Si se da
+     * {@code indices}, cada posición se traduce a través de ese array.
+     */
+    private List<Pregunta> muestrear(int[] indices, int total, int cantidad) {
+        if (cantidad > total) {
+            throw new IllegalStateException("No hay suficientes preguntas para una partida");
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] elegidas = new int[cantidad];
+        int n = 0;
+        for (int j = total - cantidad; j < total; j++) {
+            int candidata = random.nextInt(j + 1);
+            boolean repetida = contiene(elegidas, n, candidata);
+            elegidas[n++] = repetida ? j : candidata;
+        }
+        Pregunta[] resultado = new Pregunta[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            int posicion = elegidas[i];
+            resultado[i] = preguntas[indices != null ? indices[posicion] : posicion];
+        }
+        // Floyd da un subconjunto uniforme pero no un orden aleatorio: se mezcla
+        for (int i = cantidad - 1; i > 0; i--) {
+            int k = random.nextInt(i + 1);
+            Pregunta tmp = resultado[i];
+            resultado[i] = resultado[k];
+            resultado[k] = tmp;
+        }
+        return Collections.unmodifiableList(Arrays.asList(resultado));
+    }
+
+    private static boolean contiene(int[] valores, int longitud, int valor) {
+        for (int i = 0; i < longitud; i++) {
+            if (valores[i] == valor) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,138 @@
+package SERVIDOR;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Carga del banco de preguntas.
+ *
+ * El JSON se recorre en streaming: solo se materializa un objeto pregunta a la
+ * vez, nunca el documento completo. Por defecto se lee {@code /preguntas.json}
+ * del classpath, así que funciona igual desde el jar. Con
+ * {@code -Dtrivial.preguntas=<ruta>} se usa un fichero externo; si termina en
+ * {@code .bin} se interpreta como snapshot binario (ver {@link SnapshotPreguntas}).
+ */
+public final class CargadorPreguntas {
+    public static final String PROPIEDAD_RUTA = "trivial.preguntas";
+    private static final String RECURSO = "/preguntas.json";
+
+    private CargadorPreguntas() {
+    }
+
+    public static List<Pregunta> cargar() throws IOException {
+        String ruta = System.getProperty(PROPIEDAD_RUTA);
+        return ruta == null ? desdeClasspath() : desdeRuta(Paths.get(ruta));
+    }
+
+    public static List<Pregunta> desdeClasspath() throws IOException {
+        InputStream entrada = CargadorPreguntas.class.getResourceAsStream(RECURSO);
+        if (entrada == null) {
+            throw new FileNotFoundException("No se encuentra " + RECURSO + " en el classpath");
+        }
+        try (Reader lector = new InputStreamReader(entrada, StandardCharsets.UTF_8)) {
+            return desdeJson(lector);
+        }
+    }
+
+    public static List<Pregunta> desdeRuta(Path ruta) throws IOException {
+        if (ruta.getFileName().toString().endsWith(".bin")) {
+            return SnapshotPreguntas.leer(ruta);
+        }
+        try (Reader lector = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+            return desdeJson(lector);
+        }
+    }
+
+    public static List<Pregunta> desdeJson(Reader lector) throws IOException {
+        List<Pregunta> preguntas = new ArrayList<>();
+        recorrerJson(lector, preguntas::add);
+        return preguntas;
+    }
+
+    /**
+     * Recorre {@code {"preguntas": [ {...}, ... ]}} entregando cada pregunta en
+     * cuanto se ha leído. Las demás claves del objeto raíz se ignoran.
+     */
+    public static void recorrerJson(Reader lector, Consumer<Pregunta> destino) throws IOException {
+        JSONTokener tokener = new JSONTokener(lector instanceof BufferedReader ? lector : new BufferedReader(lector));
+        try {
+            if (tokener.nextClean() != '{') {
+                throw tokener.syntaxError("Se esperaba '{'");
+            }
+            char c = tokener.nextClean();
+            while (c != '}') {
+                tokener.back();
+                String clave = tokener.nextValue().toString();
+                if (tokener.nextClean() != ':') {
+                    throw tokener.syntaxError("Se esperaba ':'");
+                }
+                if ("preguntas".equals(clave)) {
+                    recorrerPreguntas(tokener, destino);
+                } else {
+                    tokener.nextValue();
+                }
+                c = tokener.nextClean();
+                if (c == ',') {
+                    c = tokener.nextClean();
+                } else if (c != '}') {
+                    throw tokener.syntaxError("Se esperaba ',' o '}'");
+                }
+            }
+        } catch (JSONException e) {
+            throw new IOException("preguntas.json mal formado: " + e.getMessage(), e);
+        }
+    }
+
+    private static void recorrerPreguntas(JSONTokener tokener, Consumer<Pregunta> destino) {
+        if (tokener.nextClean() != '[') {
+            throw tokener.syntaxError("Se esperaba '['");
+        }
+        char c = tokener.nextClean();
+        while (c != ']') {
+            tokener.back();
+            Object valor = tokener.nextValue();
+            if (!(valor instanceof JSONObject)) {
+                throw tokener.syntaxError("Se esperaba un objeto pregunta");
+            }
+            destino.accept(convertir((JSONObject) valor));
+            c = tokener.nextClean();
+            if (c == ',') {
+                c = tokener.nextClean();
+            } else if (c != ']') {
+                throw tokener.syntaxError("Se esperaba ',' o ']'");
+            }
+        }
+    }
+
+    private static Pregunta convertir(JSONObject preguntaJson) {
+        JSONArray opcionesJson = preguntaJson.getJSONArray("opciones");
+        List<String> opciones = new ArrayList<>(opcionesJson.length());
+        for (int i = 0; i < opcionesJson.length(); i++) {
+            opciones.add(opcionesJson.get(i).toString());
+        }
+        return new Pregunta(
+            preguntaJson.getInt("id"),
+            preguntaJson.getString("pregunta"),
+            preguntaJson.optString("codigo"),
+            opciones,
+            preguntaJson.getInt("respuesta_correcta"),
+            preguntaJson.optString("categoria", null)
+        );
+    }
+}
@@ -0,0 +1,84 @@
+package SERVIDOR;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Clasificación de una partida al cerrar una ronda o al terminar. La partida
+ * la crea una sola vez y se la pasa a todas las sesiones; las puntuaciones se
+ * copian al crearla, así que todas muestran lo mismo.
+ *
+ * Cada formato de salida la codifica una vez con {@link #codificada} y el
+ * resto de sesiones de la partida envían esos mismos bytes.
+ */
+public final class Clasificacion {
+    private final int ronda;
+    private final boolean quedanRondas;
+    private final boolean esFinal;
+    private final List<JugadorPartida> ranking;
+    private final int[] puntos;
+    private final int ganadores;
+    private final Map<Class<?>, byte[]> codificaciones = new ConcurrentHashMap<>(2);
+
+    private Clasificacion(int ronda, List<JugadorPartida> ranking, boolean quedanRondas, boolean esFinal) {
+        this.ronda = ronda;
+        this.ranking = ranking;
+        this.quedanRondas = quedanRondas;
+        this.esFinal = esFinal;
+        this.puntos = new int[ranking.size()];
+        for (int i = 0; i < puntos.length; i++) {
+            puntos[i] = ranking.get(i).getPuntuacionTotal();
+        }
+        int empatados = 0;
+        if (puntos.length > 0 && puntos[0] > 0) {
+            empatados = 1;
+            while (empatados < puntos.length && puntos[empatados] == puntos[0]) {
+                empatados++;
+            }
+        }
+        this.ganadores = empatados;
+    }
+
+    /** Al cerrar una ronda; {@code ranking} es la instantánea ya ordenada de la partida. */
+    static Clasificacion deRonda(int ronda, List<JugadorPartida> ranking, boolean quedanRondas) {
+        return new Clasificacion(ronda, ranking, quedanRondas, false);
+    }
+
+    static Clasificacion deFinal(int ronda, List<JugadorPartida> ranking) {
+        return new Clasificacion(ronda, ranking, false, true);
+    }
+
+    public int getRonda() { return ronda; }
+    public boolean quedanRondas() { return quedanRondas; }
+    public boolean esFinal() { return esFinal; }
+    public List<JugadorPartida> getRanking() { return ranking; }
+    public int size() { return ranking.size(); }
+
+    /** Puntos del jugador en esa posición cuando se creó la clasificación. */
+    public int getPuntos(int posicion) {
+        return puntos[posicion];
+    }
+
+    public boolean hayGanador() {
+        return ganadores > 0;
+    }
+
+    public boolean hayEmpate() {
+        return ganadores > 1;
+    }
+
+    /** Los primeros de la clasificación si tienen puntos; vacía si nadie puntuó. */
+    public List<JugadorPartida> getGanadores() {
+        return ranking.subList(0, ganadores);
+    }
+
+    /**
+     * Los bytes de esta clasificación en el formato dado; el primero que los
+     * pide los genera y los demás reciben el mismo array, que no se modifica.
+     */
+    byte[] codificada(Class<?> formato, Function<Clasificacion, byte[]> codificar) {
+        return codificaciones.computeIfAbsent(formato, clave -> codificar.apply(this));
+    }
+}
@@ -0,0 +1,232 @@
+package SERVIDOR;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clasificación de todos los jugadores de las partidas no finalizadas.
+ *
+ * Las partidas avisan al unirse o salir un jugador, al sumar puntos y al
+ * terminar, y aquí se mantiene un skip list ordenado por puntuación más un
+ * resumen por nombre. Así el top-N se lee recorriendo los primeros elementos y
+ * las estadísticas de un jugador son una búsqueda, sin recorrer las partidas.
+ *
+ * Todos los cambios de un mismo nombre se serializan con {@code compute} sobre
+ * su resumen; nombres distintos no se bloquean entre sí.
+ */
+public class ClasificacionGlobal {
+    private static final Comparator<Entrada> ORDEN = Comparator
+            .comparingInt((Entrada e) -> e.puntos).reversed()
+            .thenComparingLong(e -> e.orden);
+    // después de ORDEN: el constructor lo necesita ya inicializado
+    private static final ClasificacionGlobal instancia = new ClasificacionGlobal();
+
+    private final NavigableSet<Entrada> ordenadas;
+    private final Map<String, Resumen> porNombre;
+    // desempata a igualdad de puntos: antes quien llegó antes a esa puntuación
+    private final AtomicLong secuencia;
+    // se incrementa después de tocar el skip list, nunca antes: quien lea una
+    // versión y luego recorra la lista no puede quedarse con datos más viejos
+    private final AtomicLong version;
+    // el size() del skip list recorre la lista entera
+    private final AtomicInteger total;
+
+    private ClasificacionGlobal() {
+        this.ordenadas = new ConcurrentSkipListSet<>(ORDEN);
+        this.porNombre = new ConcurrentHashMap<>();
+        this.secuencia = new AtomicLong();
+        this.version = new AtomicLong();
+        this.total = new AtomicInteger();
+    }
+
+    public static ClasificacionGlobal getInstance() {
+        return instancia;
+    }
+
+    /** Puntuación de un jugador en una partida concreta. Inmutable. */
+    public static final class Entrada {
+        private final JugadorPartida jugador;
+        private final String codigoPartida;
+        private final int puntos;
+        private final long orden;
+
+        private Entrada(JugadorPartida jugador, String codigoPartida, int puntos, long orden) {
+            this.jugador = jugador;
+            this.codigoPartida = codigoPartida;
+            this.puntos = puntos;
+            this.orden = orden;
+        }
+
+        public String getNombre() { return jugador.getNombre(); }
+        public String getCodigoPartida() { return codigoPartida; }
+        public int getPuntos() { return puntos; }
+    }
+
+    /** Estadísticas de un nombre sobre sus partidas no finalizadas. Inmutable. */
+    public static final class Resumen {
+        private final List<Entrada> entradas;
+        private final int puntuacionTotal;
+        private final int mejorPuntuacion;
+        private final long version;
+
+        private Resumen(List<Entrada> entradas, long version) {
+            this.entradas = entradas;
+            this.version = version;
+            int total = 0;
+            int mejor = 0;
+            for (Entrada entrada : entradas) {
+                total += entrada.puntos;
+                mejor = Math.max(mejor, entrada.puntos);
+            }
+            this.puntuacionTotal = total;
+            this.mejorPuntuacion = mejor;
+        }
+
+        public int getPartidasJugadas() { return entradas.size(); }
+        public int getPuntuacionTotal() { return puntuacionTotal; }
+        public int getMejorPuntuacion() { return mejorPuntuacion; }
+        public double getPuntuacionMedia() { return puntuacionTotal / (double) entradas.size(); }
+        /** Distinta cada vez que cambian las estadísticas de este nombre. */
+        public long getVersion() { return version; }
+
+        private Entrada buscar(JugadorPartida jugador) {
+            for (Entrada entrada : entradas) {
+                if (entrada.jugador == jugador) {
+                    return entrada;
+                }
+            }
+            return null;
+        }
+
+        private Resumen sustituir(Entrada vieja, Entrada nueva, long version) {
+            List<Entrada> resto = new ArrayList<>(entradas.size() + 1);
+            for (Entrada entrada : entradas) {
+                if (entrada != vieja) {
+                    resto.add(entrada);
+                }
+            }
+            if (nueva != null) {
+                resto.add(nueva);
+            }
+            return resto.isEmpty() ? null : new Resumen(List.copyOf(resto), version);
+        }
+    }
+
+    private static String clave(String nombre) {
+        return nombre.toLowerCase(Locale.ROOT);
+    }
+
+    void jugadorUnido(Partida partida, JugadorPartida jugador) {
+        porNombre.compute(clave(jugador.getNombre()), (k, resumen) -> {
+            if (resumen != null && resumen.buscar(jugador) != null) {
+                return resumen;
+            }
+            Entrada nueva = new Entrada(jugador, partida.getCodigo(),
+                    jugador.getPuntuacionTotal(), secuencia.incrementAndGet());
+            ordenadas.add(nueva);
+            total.incrementAndGet();
+            version.incrementAndGet();
+            return resumen == null
+                    ? new Resumen(List.of(nueva), nueva.orden)
+                    : resumen.sustituir(null, nueva, nueva.orden);
+        });
+    }
+
+    /** Recoloca al jugador con su puntuación actual; ignora jugadores ya retirados. */
+    void puntosActualizados(JugadorPartida jugador) {
+        porNombre.computeIfPresent(clave(jugador.getNombre()), (k, resumen) -> {
+            Entrada vieja = resumen.buscar(jugador);
+            int puntos = jugador.getPuntuacionTotal();
+            if (vieja == null || vieja.puntos == puntos) {
+                return resumen;
+            }
+            Entrada nueva = new Entrada(jugador, vieja.codigoPartida, puntos, secuencia.incrementAndGet());
+            ordenadas.add(nueva);
+            ordenadas.remove(vieja);
+            version.incrementAndGet();
+            return resumen.sustituir(vieja, nueva, nueva.orden);
+        });
+    }
+
+    void jugadorRetirado(JugadorPartida jugador) {
+        porNombre.computeIfPresent(clave(jugador.getNombre()), (k, resumen) -> {
+            Entrada vieja = resumen.buscar(jugador);
+            if (vieja == null) {
+                return resumen;
+            }
+            ordenadas.remove(vieja);
+            total.decrementAndGet();
+            version.incrementAndGet();
+            return resumen.sustituir(vieja, null, secuencia.incrementAndGet());
+        });
+    }
+
+    void partidaFinalizada(List<JugadorPartida> jugadores) {
+        for (JugadorPartida jugador : jugadores) {
+            jugadorRetirado(jugador);
+        }
+    }
+
+    /** Los {@code n} nombres con mejor puntuación, cada uno con su mejor partida. */
+    public List<Entrada> top(int n) {
+        List<Entrada> resultado = new ArrayList<>(Math.max(0, Math.min(n, 64)));
+        Set<String> vistos = new HashSet<>();
+        Iterator<Entrada> it = ordenadas.iterator();
+        while (resultado.size() < n && it.hasNext()) {
+            Entrada entrada = it.next();
+            if (vistos.add(entrada.getNombre())) {
+                resultado.add(entrada);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Una página de la clasificación completa (una entrada por jugador y
+     * partida). Es una vista débilmente consistente: refleja los cambios que
+     * ocurran mientras se recorre, pero nunca falla por ellos.
+     */
+    public List<Entrada> pagina(int numero, int tamano) {
+        List<Entrada> resultado = new ArrayList<>(Math.max(0, tamano));
+        long saltar = (long) Math.max(0, numero) * tamano;
+        Iterator<Entrada> it = ordenadas.iterator();
+        for (long i = 0; i < saltar && it.hasNext(); i++) {
+            it.next();
+        }
+        while (resultado.size() < tamano && it.hasNext()) {
+            resultado.add(it.next());
+        }
+        return resultado;
+    }
+
+    /** Todas las entradas en orden, como vista de solo lectura débilmente consistente. */
+    public Iterable<Entrada> todas() {
+        return Collections.unmodifiableSet(ordenadas);
+    }
+
+    /** Resumen del nombre (sin distinguir mayúsculas), o null si no está jugando. */
+    public Resumen estadisticas(String nombre) {
+        return porNombre.get(clave(nombre));
+    }
+
+    /** Versión de la clasificación: distinta cada vez que esta cambia. */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return total.get();
+    }
+}
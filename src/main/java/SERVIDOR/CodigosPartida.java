@@ -0,0 +1,92 @@
+package SERVIDOR;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Códigos de partida: seis caracteres en base 36, que caben en un long.
+ *
+ * Cada código sale de un contador pasado por una permutación de Feistel con
+ * clave aleatoria de arranque. Al ser una biyección sobre los 36^6 valores,
+ * dos números distintos del contador nunca dan el mismo código, así que no
+ * hay que reintentar hasta dar la vuelta completa; y sin la clave, un código
+ * no dice nada de los siguientes.
+ */
+public final class CodigosPartida {
+
+    private static final String CARACTERES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    public static final int LONGITUD = 6;
+    // 36^6 = 2.176.782.336, poco más que 2^31
+    private static final long ESPACIO = 2_176_782_336L;
+    private static final int RONDAS = 4;
+
+    private final int[] claves;
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public CodigosPartida() {
+        SecureRandom aleatorio = new SecureRandom();
+        this.claves = new int[RONDAS];
+        for (int i = 0; i < RONDAS; i++) {
+            claves[i] = aleatorio.nextInt();
+        }
+    }
+
+    /** Siguiente código, como clave numérica. */
+    public long siguiente() {
+        long valor = secuencia.getAndIncrement() % ESPACIO;
+        // la permutación es de 32 bits; si se sale del rango se vuelve a cifrar
+        // hasta caer dentro, lo que da una permutación de [0, ESPACIO)
+        do {
+            valor = cifrar((int) valor) & 0xFFFFFFFFL;
+        } while (valor >= ESPACIO);
+        return valor;
+    }
+
+    private int cifrar(int bloque) {
+        int izquierda = bloque >>> 16;
+        int derecha = bloque & 0xFFFF;
+        for (int clave : claves) {
+            int mezcla = (derecha ^ clave) * 0x9E3779B1;
+            mezcla ^= mezcla >>> 15;
+            int siguiente = izquierda ^ (mezcla & 0xFFFF);
+            izquierda = derecha;
+            derecha = siguiente;
+        }
+        return (izquierda << 16) | derecha;
+    }
+
+    public static String aTexto(long clave) {
+        char[] texto = new char[LONGITUD];
+        for (int i = LONGITUD - 1; i >= 0; i--) {
+            texto[i] = CARACTERES.charAt((int) (clave % 36));
+            clave /= 36;
+        }
+        return new String(texto);
+    }
+
+    /** Clave de un código escrito por el usuario, o -1 si no tiene el formato. */
+    public static long aClave(String codigo) {
+        if (codigo == null || codigo.length() != LONGITUD) {
+            return -1;
+        }
+        long clave = 0;
+        for (int i = 0; i < LONGITUD; i++) {
+            int valor = valorDe(codigo.charAt(i));
+            if (valor < 0) {
+                return -1;
+            }
+            clave = clave * 36 + valor;
+        }
+        return clave;
+    }
+
+    private static int valorDe(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + (c - '0');
+        }
+        return -1;
+    }
+}
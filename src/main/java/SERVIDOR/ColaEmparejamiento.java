@@ -0,0 +1,205 @@
+package SERVIDOR;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Cola de la partida rápida: junta a quien la pide con otros jugadores sin
+ * que nadie tenga que repartir un código.
+ *
+ * Los jugadores entran por orden de llegada en un único grupo abierto. El
+ * grupo se convierte en partida en cuanto llega a
+ * {@link Partida#MAX_JUGADORES}; si no se llena, al cumplirse
+ * {@code trivial.emparejamiento.espera-max-s} segundos desde que entró el
+ * primero arranca con los que haya, siempre que sean al menos
+ * {@link Partida#MIN_JUGADORES}, y si ni eso, en cuanto llegue el que falta.
+ *
+ * El cerrojo solo cubre añadir o quitar una solicitud del grupo abierto;
+ * la partida se crea y se avisa a las sesiones fuera de él, en el hilo que
+ * cerró el grupo (el del último jugador o el del {@link Planificador}).
+ */
+public class ColaEmparejamiento {
+    private static final long ESPERA_MAXIMA_MS = TimeUnit.SECONDS.toMillis(Long.getLong("trivial.emparejamiento.espera-max-s", 10));
+
+    private final GestorPartidas gestorPartidas;
+    private final long esperaMaximaMs;
+    private final Object cerrojo = new Object();
+    // grupo que se está llenando; null si no espera nadie
+    private Grupo abierto;
+    private final AtomicLong partidasFormadas = new AtomicLong();
+    private final AtomicLong jugadoresEmparejados = new AtomicLong();
+
+    /** Jugador en espera. Sus campos mutables solo se tocan con el cerrojo de la cola. */
+    public static final class Solicitud {
+        private final JugadorPartida jugador;
+        private final OyentePartida oyente;
+        private final Consumer<Partida> alEmparejar;
+        // se completa cuando el jugador ya está dentro de su partida
+        private final CompletableFuture<Partida> partida = new CompletableFuture<>();
+        private Grupo grupo;
+        private boolean retirada;
+
+        private Solicitud(JugadorPartida jugador, OyentePartida oyente, Consumer<Partida> alEmparejar) {
+            this.jugador = jugador;
+            this.oyente = oyente;
+            this.alEmparejar = alEmparejar;
+        }
+
+        public JugadorPartida getJugador() {
+            return jugador;
+        }
+
+        public CompletableFuture<Partida> getPartida() {
+            return partida;
+        }
+    }
+
+    private static final class Grupo {
+        final List<Solicitud> solicitudes = new ArrayList<>(Partida.MAX_JUGADORES);
+        ScheduledFuture<?> plazo;
+        // cumplió la espera máxima sin llegar al mínimo: arranca con el que falta
+        boolean vencido;
+    }
+
+    ColaEmparejamiento(GestorPartidas gestorPartidas) {
+        this(gestorPartidas, ESPERA_MAXIMA_MS);
+    }
+
+    ColaEmparejamiento(GestorPartidas gestorPartidas, long esperaMaximaMs) {
+        this.gestorPartidas = gestorPartidas;
+        this.esperaMaximaMs = esperaMaximaMs;
+    }
+
+    /**
+     * Pone al jugador en la cola. Cuando tenga partida se llama a
+     * {@code alEmparejar}, antes de que el jugador entre en ella, y después
+     * {@code oyente} recibe los eventos de la partida como cualquier otro.
+     * Si este jugador completa el grupo, todo eso ocurre antes de volver.
+     */
+    public Solicitud encolar(JugadorPartida jugador, OyentePartida oyente, Consumer<Partida> alEmparejar) {
+        Solicitud solicitud = new Solicitud(jugador, oyente, alEmparejar);
+        List<Solicitud> completo = null;
+        synchronized (cerrojo) {
+            Grupo grupo = abierto;
+            if (grupo == null) {
+                grupo = new Grupo();
+                Grupo nuevo = grupo;
+                grupo.plazo = Planificador.getInstance().programar(() -> vencer(nuevo), esperaMaximaMs, TimeUnit.MILLISECONDS);
+                abierto = grupo;
+            }
+            solicitud.grupo = grupo;
+            grupo.solicitudes.add(solicitud);
+            int total = grupo.solicitudes.size();
+            if (total >= Partida.MAX_JUGADORES || (grupo.vencido && total >= Partida.MIN_JUGADORES)) {
+                completo = cerrar(grupo);
+            }
+        }
+        if (completo != null) {
+            formarPartida(completo);
+        }
+        return solicitud;
+    }
+
+    /**
+     * Saca la solicitud de la cola. Devuelve false si llega tarde porque ya
+     * se le ha asignado partida: entonces {@link Solicitud#getPartida()} se
+     * completa en cuanto el jugador está dentro y hay que salir de ella.
+     */
+    public boolean retirar(Solicitud solicitud) {
+        synchronized (cerrojo) {
+            if (solicitud.retirada) {
+                return true;
+            }
+            Grupo grupo = solicitud.grupo;
+            if (grupo == null) {
+                return false;
+            }
+            solicitud.retirada = true;
+            solicitud.grupo = null;
+            grupo.solicitudes.remove(solicitud);
+            if (grupo.solicitudes.isEmpty()) {
+                grupo.plazo.cancel(false);
+                abierto = null;
+            }
+            return true;
+        }
+    }
+
+    private void vencer(Grupo grupo) {
+        List<Solicitud> listo = null;
+        synchronized (cerrojo) {
+            if (grupo != abierto) {
+                return;
+            }
+            grupo.vencido = true;
+            if (grupo.solicitudes.size() >= Partida.MIN_JUGADORES) {
+                listo = cerrar(grupo);
+            }
+        }
+        if (listo != null) {
+            formarPartida(listo);
+        }
+    }
+
+    /** Con el cerrojo tomado: el grupo deja de admitir jugadores y de poder perderlos. */
+    private List<Solicitud> cerrar(Grupo grupo) {
+        abierto = null;
+        grupo.plazo.cancel(false);
+        for (Solicitud solicitud : grupo.solicitudes) {
+            solicitud.grupo = null;
+        }
+        return grupo.solicitudes;
+    }
+
+    private void formarPartida(List<Solicitud> grupo) {
+        Partida partida = null;
+        try {
+            String codigo = gestorPartidas.crearPartida();
+            partida = gestorPartidas.obtenerPartida(codigo);
+            // las sesiones conocen su partida antes de que el último en
+            // entrar la arranque
+            for (Solicitud solicitud : grupo) {
+                solicitud.alEmparejar.accept(partida);
+                partida.agregarOyente(solicitud.oyente);
+            }
+            for (Solicitud solicitud : grupo) {
+                partida.agregarJugador(solicitud.jugador, false);
+                gestorPartidas.registrarJugadorEnPartida(solicitud.jugador.getNombre(), codigo);
+            }
+            // con el grupo lleno ya arrancó al entrar el último
+            if (partida.getEstado() == EstadoPartida.ESPERANDO) {
+                partida.comenzarPartida();
+            }
+            partidasFormadas.incrementAndGet();
+            jugadoresEmparejados.addAndGet(grupo.size());
+            Registro.debug(() -> "Partida rápida " + codigo + " formada con " + grupo.size() + " jugadores");
+        } catch (RuntimeException e) {
+            // puede venir del hilo del planificador, donde nadie la vería
+            Registro.error("Error formando una partida rápida: " + e);
+        } finally {
+            for (Solicitud solicitud : grupo) {
+                solicitud.partida.complete(partida);
+            }
+        }
+    }
+
+    /** Jugadores esperando ahora mismo en el grupo abierto. */
+    public int getEnEspera() {
+        synchronized (cerrojo) {
+            return abierto != null ? abierto.solicitudes.size() : 0;
+        }
+    }
+
+    public long getPartidasFormadas() {
+        return partidasFormadas.get();
+    }
+
+    public long getJugadoresEmparejados() {
+        return jugadoresEmparejados.get();
+    }
+}
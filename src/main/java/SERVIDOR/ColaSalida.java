@@ -0,0 +1,160 @@
+package SERVIDOR;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Locale;
+
+/**
+ * Mensajes pendientes de enviar a un cliente, cada uno entero y listo para
+ * salir en una sola escritura. No es thread-safe: la conexión que la usa la
+ * protege con su propio cerrojo.
+ *
+ * La cola está acotada en bytes ({@code trivial.salida.limite-bytes}) para que
+ * un cliente que deja de leer no acumule memoria ni frene a los demás. Con la
+ * política {@code descartar} (por defecto), a partir de la mitad del límite se
+ * tiran los avisos de progreso y, si aun así se llega al límite, la conexión
+ * debe cerrarse; con {@code desconectar} se cierra directamente al llegar al
+ * límite ({@code trivial.salida.politica}).
+ */
+final class ColaSalida {
+    enum Politica { DESCARTAR, DESCONECTAR }
+
+    static final int LIMITE_BYTES = Integer.getInteger("trivial.salida.limite-bytes", 16 * 1024);
+    static final Politica POLITICA = Politica.valueOf(
+            System.getProperty("trivial.salida.politica", "descartar").toUpperCase(Locale.ROOT));
+
+    // como máximo se juntan tantos mensajes en cada escritura
+    private static final int MAX_POR_ESCRITURA = 16;
+
+    private static final class Mensaje {
+        final ByteBuffer datos;
+        final boolean progreso;
+
+        Mensaje(ByteBuffer datos, boolean progreso) {
+            this.datos = datos;
+            this.progreso = progreso;
+        }
+    }
+
+    private final ArrayDeque<Mensaje> mensajes = new ArrayDeque<>(4);
+    // bytes en la cola más los que ha tomado un escritor y aún no ha confirmado
+    private int pendientes;
+    private int descartados;
+
+    /**
+     * Encola un mensaje. Los de progreso se descartan si el cliente va
+     * retrasado. Devuelve false si la cola está llena: la conexión debe
+     * cerrarse porque el cliente no da abasto.
+     */
+    boolean agregar(byte[] datos, boolean progreso) {
+        if (progreso && POLITICA == Politica.DESCARTAR && pendientes >= LIMITE_BYTES / 2) {
+            descartados++;
+            return true;
+        }
+        // con la cola vacía se acepta cualquier mensaje, por grande que sea
+        if (pendientes > 0 && pendientes + datos.length > LIMITE_BYTES) {
+            if (POLITICA == Politica.DESCARTAR) {
+                descartarProgreso();
+            }
+            if (pendientes > 0 && pendientes + datos.length > LIMITE_BYTES) {
+                return false;
+            }
+        }
+        mensajes.add(new Mensaje(ByteBuffer.wrap(datos), progreso));
+        pendientes += datos.length;
+        return true;
+    }
+
+    /** Quita los avisos de progreso que aún no han empezado a salir. */
+    private void descartarProgreso() {
+        Iterator<Mensaje> it = mensajes.iterator();
+        while (it.hasNext()) {
+            Mensaje mensaje = it.next();
+            if (mensaje.progreso && mensaje.datos.position() == 0) {
+                it.remove();
+                pendientes -= mensaje.datos.remaining();
+                descartados++;
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return mensajes.isEmpty();
+    }
+
+    int getPendientes() {
+        return pendientes;
+    }
+
+    int getDescartados() {
+        return descartados;
+    }
+
+    /**
+     * Escribe en el canal no bloqueante todo lo que admita, varios mensajes
+     * por llamada. Lo que no cabe se queda para cuando vuelva a ser escribible.
+     */
+    void escribir(GatheringByteChannel canal) throws IOException {
+        while (!mensajes.isEmpty()) {
+            ByteBuffer[] bloque = new ByteBuffer[Math.min(mensajes.size(), MAX_POR_ESCRITURA)];
+            Iterator<Mensaje> it = mensajes.iterator();
+            for (int i = 0; i < bloque.length; i++) {
+                bloque[i] = it.next().datos;
+            }
+            pendientes -= (int) canal.write(bloque);
+            while (!mensajes.isEmpty() && !mensajes.peek().datos.hasRemaining()) {
+                mensajes.poll();
+            }
+            if (bloque[bloque.length - 1].hasRemaining()) {
+                return; // el socket no admite más por ahora
+            }
+        }
+    }
+
+    /**
+     * Saca todos los mensajes juntos en un array para escribirlos de una vez
+     * en un stream bloqueante, o null si no hay ninguno. Siguen contando como
+     * pendientes hasta que se llame a {@link #escritos(int)}.
+     */
+    byte[] tomar() {
+        if (mensajes.isEmpty()) {
+            return null;
+        }
+        if (mensajes.size() == 1) {
+            return mensajes.poll().datos.array();
+        }
+        byte[] bloque = new byte[pendientesEnCola()];
+        int posicion = 0;
+        Mensaje mensaje;
+        while ((mensaje = mensajes.poll()) != null) {
+            int longitud = mensaje.datos.remaining();
+            System.arraycopy(mensaje.datos.array(), mensaje.datos.position(), bloque, posicion, longitud);
+            posicion += longitud;
+        }
+        return bloque;
+    }
+
+    /**
+     * Como {@link #tomar()} pero de uno en uno, para transportes que mantienen
+     * separados los mensajes (WebSocket).
+     */
+    byte[] siguiente() {
+        Mensaje mensaje = mensajes.poll();
+        return mensaje != null ? mensaje.datos.array() : null;
+    }
+
+    void escritos(int bytes) {
+        pendientes -= bytes;
+    }
+
+    private int pendientesEnCola() {
+        int total = 0;
+        for (Mensaje mensaje : mensajes) {
+            total += mensaje.datos.remaining();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,27 @@
+package SERVIDOR;
+
+import java.io.IOException;
+
+/**
+ * Transporte entre el servidor y un cliente. Lo que llega se entrega a
+ * {@link ControladorCliente} como {@link Orden} (desde el hilo de la sesión
+ * en {@link ConexionSocket}, desde un trabajador en las demás) y lo que sale
+ * se envía con {@link #enviar(byte[])}.
+ */
+public interface Conexion {
+
+    /** Envía los bytes tal cual y de una vez, detrás de lo ya enviado. */
+    void enviar(byte[] datos);
+
+    /**
+     * Como {@link #enviar(byte[])}, para avisos de progreso que se pueden
+     * perder si el cliente va retrasado (ver {@link ColaSalida}).
+     */
+    default void enviarProgreso(byte[] datos) {
+        enviar(datos);
+    }
+
+    String getDireccion();
+
+    void cerrar() throws IOException;
+}
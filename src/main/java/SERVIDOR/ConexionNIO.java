@@ -0,0 +1,174 @@
+package SERVIDOR;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Conexión no bloqueante gestionada por un {@link ReactorNIO}.
+ *
+ * El reactor separa las líneas y las pasa a una {@link EntradaLineas}, así que
+ * mientras la sesión está ociosa (por ejemplo en el menú principal) no ocupa
+ * ningún hilo.
+ *
+ * La salida nunca bloquea al hilo que escribe: lo que el socket no admite se
+ * queda en una {@link ColaSalida} acotada que el reactor vacía cuando el canal
+ * vuelve a ser escribible, y si el cliente no lee se le desconecta.
+ */
+final class ConexionNIO implements Conexion {
+    // plazo para vaciar la cola al cerrar antes de cortar la conexión
+    private static final long ESPERA_CIERRE_S = 10;
+
+    private final SocketChannel canal;
+    private final ReactorNIO reactor;
+    private final String direccion;
+    private final DecodificadorEntrada decodificador = new DecodificadorEntrada();
+    private final EntradaLineas entrada;
+
+    private final ColaSalida cola = new ColaSalida();
+    private SelectionKey clave;
+    private boolean cerrarTrasEscribir;
+    private volatile boolean canalCerrado;
+
+    ConexionNIO(SocketChannel canal, ReactorNIO reactor, Executor trabajadores) {
+        this.canal = canal;
+        this.reactor = reactor;
+        this.direccion = String.valueOf(canal.socket().getInetAddress());
+        this.entrada = new EntradaLineas(trabajadores, direccion, this::cerrarCanal);
+    }
+
+    void setManejadores(Consumer<Orden> manejadorLineas, Runnable manejadorCierre) {
+        entrada.setManejadores(manejadorLineas, manejadorCierre);
+    }
+
+    SocketChannel getCanal() {
+        return canal;
+    }
+
+    // --- Entrada (hilo del reactor) ---
+
+    void datosRecibidos(ByteBuffer datos) throws IOException {
+        decodificador.procesar(datos, entrada::ordenRecibida);
+    }
+
+    void cerradaPorCliente() {
+        entrada.cerradaPorCliente();
+        // también si ya se había cerrado desde el servidor con salida pendiente
+        cerrarCanal();
+    }
+
+    // --- Salida ---
+
+    @Override
+    public void enviar(byte[] datos) {
+        enviar(datos, false);
+    }
+
+    @Override
+    public void enviarProgreso(byte[] datos) {
+        enviar(datos, true);
+    }
+
+    private void enviar(byte[] datos, boolean progreso) {
+        synchronized (cola) {
+            if (canalCerrado) {
+                return;
+            }
+            boolean estabaVacia = cola.isEmpty();
+            if (!cola.agregar(datos, progreso)) {
+                Registro.warn("El cliente " + direccion + " no lee lo que se le envía ("
+                        + cola.getPendientes() + " bytes pendientes, " + cola.getDescartados()
+                        + " avisos descartados); se le desconecta");
+                cerradaPorCliente();
+                return;
+            }
+            if (!estabaVacia || cola.isEmpty()) {
+                return; // el reactor ya está pendiente de poder escribir, o se descartó
+            }
+            try {
+                cola.escribir(canal);
+            } catch (IOException e) {
+                cerradaPorCliente();
+                return;
+            }
+            if (!cola.isEmpty() && clave != null) {
+                try {
+                    clave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    reactor.despertar();
+                } catch (CancelledKeyException e) {
+                    // el canal se ha cerrado mientras tanto
+                }
+            }
+        }
+    }
+
+    /** Llamado por el reactor tras registrar el canal en su selector. */
+    void registrada(SelectionKey clave) {
+        synchronized (cola) {
+            this.clave = clave;
+            if (!cola.isEmpty()) {
+                try {
+                    clave.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                } catch (CancelledKeyException e) {
+                    // se ha desconectado al cliente mientras se registraba
+                }
+            }
+        }
+    }
+
+    /** Llamado por el reactor cuando el socket admite más datos. */
+    void escribible() {
+        synchronized (cola) {
+            try {
+                cola.escribir(canal);
+            } catch (IOException e) {
+                cerradaPorCliente();
+                return;
+            }
+            if (cola.isEmpty()) {
+                if (cerrarTrasEscribir) {
+                    cerrarCanal();
+                } else {
+                    clave.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        }
+    }
+
+    // --- Cierre ---
+
+    @Override
+    public String getDireccion() {
+        return direccion;
+    }
+
+    @Override
+    public void cerrar() {
+        if (!entrada.cerrar()) {
+            return;
+        }
+        synchronized (cola) {
+            if (cola.isEmpty()) {
+                cerrarCanal();
+            } else {
+                // que salga lo pendiente, pero sin esperar indefinidamente
+                cerrarTrasEscribir = true;
+                Planificador.getInstance().programar(this::cerrarCanal, ESPERA_CIERRE_S, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private void cerrarCanal() {
+        canalCerrado = true;
+        try {
+            canal.close();
+        } catch (IOException e) {
+            Registro.warn("Error al cerrar canal: " + e.getMessage());
+        }
+    }
+}
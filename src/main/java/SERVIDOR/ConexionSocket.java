@@ -0,0 +1,160 @@
+package SERVIDOR;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Conexión clásica de un hilo por cliente sobre un {@link Socket} bloqueante.
+ *
+ * Lo que se envía pasa por una {@link ColaSalida} y lo escribe en el socket
+ * un hilo escritor, así que un cliente que no lee bloquea a ese hilo y no al
+ * de la partida que le manda los mensajes. Los escritores salen de un pool de
+ * hilos de plataforma salvo que el servidor pase otro ejecutor (en el modo
+ * virtual, uno de hilos virtuales).
+ */
+public class ConexionSocket implements Conexion {
+    private static final AtomicInteger escritoresCreados = new AtomicInteger();
+    private static final Executor ESCRITORES = Executors.newCachedThreadPool(tarea -> {
+        Thread hilo = new Thread(tarea, "escritor-" + escritoresCreados.incrementAndGet());
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    // plazo para vaciar la cola al cerrar antes de cortar la conexión
+    private static final long ESPERA_CIERRE_S = 10;
+
+    private final Socket socket;
+    private final Executor escritores;
+    private final InputStream in;
+    private final OutputStream salidaBruta;
+    private final byte[] bufferLectura = new byte[1024];
+    private final DecodificadorEntrada decodificador = new DecodificadorEntrada();
+    private final ArrayDeque<Orden> ordenes = new ArrayDeque<>(4);
+
+    private final ColaSalida cola = new ColaSalida();
+    private boolean escribiendo;
+    private boolean cerrarTrasEscribir;
+
+    public ConexionSocket(Socket socket) throws IOException {
+        this(socket, ESCRITORES);
+    }
+
+    public ConexionSocket(Socket socket, Executor escritores) throws IOException {
+        this.socket = socket;
+        this.escritores = escritores;
+        this.in = socket.getInputStream();
+        this.salidaBruta = socket.getOutputStream();
+    }
+
+    /**
+     * Lee del socket en el hilo de la sesión y entrega cada orden a
+     * {@code manejador} hasta que el cliente cierra.
+     */
+    void atender(Consumer<Orden> manejador) throws IOException {
+        int leidos;
+        while ((leidos = in.read(bufferLectura)) >= 0) {
+            decodificador.procesar(ByteBuffer.wrap(bufferLectura, 0, leidos), ordenes::add);
+            Orden orden;
+            while ((orden = ordenes.poll()) != null) {
+                manejador.accept(orden);
+            }
+        }
+    }
+
+    @Override
+    public void enviar(byte[] datos) {
+        encolar(datos, false);
+    }
+
+    @Override
+    public void enviarProgreso(byte[] datos) {
+        encolar(datos, true);
+    }
+
+    private void encolar(byte[] datos, boolean progreso) {
+        synchronized (cola) {
+            if (socket.isClosed() || cerrarTrasEscribir) {
+                return;
+            }
+            if (!cola.agregar(datos, progreso)) {
+                Registro.warn("El cliente " + getDireccion() + " no lee lo que se le envía ("
+                        + cola.getPendientes() + " bytes pendientes, " + cola.getDescartados()
+                        + " avisos descartados); se le desconecta");
+                cerrarSocket();
+                return;
+            }
+            if (escribiendo || cola.isEmpty()) {
+                return;
+            }
+            escribiendo = true;
+        }
+        escritores.execute(this::volcar);
+    }
+
+    /** Hilo escritor: saca de la cola todo lo acumulado y lo escribe de una vez. */
+    private void volcar() {
+        while (true) {
+            byte[] bloque;
+            synchronized (cola) {
+                bloque = cola.tomar();
+                if (bloque == null) {
+                    escribiendo = false;
+                    if (cerrarTrasEscribir) {
+                        cerrarSocket();
+                    }
+                    return;
+                }
+            }
+            try {
+                salidaBruta.write(bloque);
+            } catch (IOException e) {
+                // el hilo de la sesión verá el socket cerrado y hará la limpieza
+                if (!socket.isClosed()) {
+                    Registro.warn("Error al enviar a " + getDireccion() + ": " + e.getMessage());
+                }
+                cerrarSocket();
+                synchronized (cola) {
+                    escribiendo = false;
+                }
+                return;
+            }
+            synchronized (cola) {
+                cola.escritos(bloque.length);
+            }
+        }
+    }
+
+    @Override
+    public String getDireccion() {
+        return String.valueOf(socket.getInetAddress());
+    }
+
+    @Override
+    public void cerrar() {
+        synchronized (cola) {
+            if (escribiendo) {
+                // que salga lo pendiente, pero sin esperar indefinidamente
+                cerrarTrasEscribir = true;
+                Planificador.getInstance().programar(this::cerrarSocket, ESPERA_CIERRE_S, TimeUnit.SECONDS);
+                return;
+            }
+        }
+        cerrarSocket();
+    }
+
+    private void cerrarSocket() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            Registro.warn("Error al cerrar socket: " + e.getMessage());
+        }
+    }
+}
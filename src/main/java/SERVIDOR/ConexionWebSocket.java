@@ -0,0 +1,155 @@
+package SERVIDOR;
+
+import javax.websocket.CloseReason;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Sesión WebSocket de {@link PasarelaWebSocket} vista como {@link Conexion}.
+ *
+ * Cada mensaje de texto del navegador es un objeto de {@link ProtocoloJson}
+ * que se traduce a una {@link Orden} en el hilo del servidor web y se atiende con una
+ * {@link EntradaLineas}, igual que en {@link ConexionNIO}: ninguna sesión
+ * ocupa un hilo mientras espera. Cada {@link #enviar(byte[])} es un mensaje
+ * de texto; salen de uno en uno con el envío asíncrono del contenedor, y los
+ * que esperan turno se guardan en una {@link ColaSalida}.
+ */
+final class ConexionWebSocket implements Conexion {
+    // plazo del contenedor para entregar cada mensaje antes de dar el envío por fallido
+    private static final long ESPERA_ENVIO_MS = 10_000;
+
+    private final Session sesion;
+    private final String direccion;
+    private final EntradaLineas entrada;
+
+    private final ColaSalida cola = new ColaSalida();
+    private boolean enviando;
+    private boolean cerrarTrasEnviar;
+
+    ConexionWebSocket(Session sesion, Executor trabajadores) {
+        this.sesion = sesion;
+        this.direccion = "websocket " + sesion.getId();
+        this.entrada = new EntradaLineas(trabajadores, direccion, this::cerrarSesion);
+        sesion.getAsyncRemote().setSendTimeout(ESPERA_ENVIO_MS);
+    }
+
+    void setManejadores(Consumer<Orden> manejadorLineas, Runnable manejadorCierre) {
+        entrada.setManejadores(manejadorLineas, manejadorCierre);
+    }
+
+    // --- Entrada (hilo del servidor web) ---
+
+    void mensajeRecibido(String mensaje) {
+        try {
+            entrada.ordenRecibida(ProtocoloJson.traducir(mensaje));
+        } catch (IOException e) {
+            Registro.warn("Mensaje no válido de " + direccion + ": " + e.getMessage());
+            cerrarSesion(new CloseReason(CloseReason.CloseCodes.CANNOT_ACCEPT, "Mensaje no válido"));
+            entrada.cerradaPorCliente();
+        }
+    }
+
+    void cerradaPorCliente() {
+        entrada.cerradaPorCliente();
+    }
+
+    // --- Salida ---
+
+    @Override
+    public void enviar(byte[] datos) {
+        enviar(datos, false);
+    }
+
+    @Override
+    public void enviarProgreso(byte[] datos) {
+        enviar(datos, true);
+    }
+
+    private void enviar(byte[] datos, boolean progreso) {
+        synchronized (cola) {
+            if (!sesion.isOpen() || cerrarTrasEnviar) {
+                return;
+            }
+            if (!cola.agregar(datos, progreso)) {
+                Registro.warn("El cliente " + direccion + " no lee lo que se le envía ("
+                        + cola.getPendientes() + " bytes pendientes, " + cola.getDescartados()
+                        + " avisos descartados); se le desconecta");
+                cerradaPorCliente();
+                return;
+            }
+            if (enviando || cola.isEmpty()) {
+                return;
+            }
+            enviando = true;
+        }
+        enviarSiguiente();
+    }
+
+    /** Envía el primer mensaje de la cola; al confirmarse, el contenedor pide el siguiente. */
+    private void enviarSiguiente() {
+        byte[] datos;
+        synchronized (cola) {
+            datos = cola.siguiente();
+            if (datos == null) {
+                enviando = false;
+                if (cerrarTrasEnviar) {
+                    cerrarSesion();
+                }
+                return;
+            }
+        }
+        try {
+            sesion.getAsyncRemote().sendText(new String(datos, StandardCharsets.UTF_8), resultado -> {
+                synchronized (cola) {
+                    cola.escritos(datos.length);
+                }
+                if (resultado.isOK()) {
+                    enviarSiguiente();
+                } else {
+                    cerradaPorCliente();
+                }
+            });
+        } catch (IllegalStateException e) {
+            // la sesión se cerró mientras tanto
+            cerradaPorCliente();
+        }
+    }
+
+    // --- Cierre ---
+
+    @Override
+    public String getDireccion() {
+        return direccion;
+    }
+
+    @Override
+    public void cerrar() {
+        if (!entrada.cerrar()) {
+            return;
+        }
+        synchronized (cola) {
+            if (enviando) {
+                cerrarTrasEnviar = true;
+                return;
+            }
+        }
+        cerrarSesion();
+    }
+
+    private void cerrarSesion() {
+        cerrarSesion(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, ""));
+    }
+
+    private void cerrarSesion(CloseReason motivo) {
+        try {
+            if (sesion.isOpen()) {
+                sesion.close(motivo);
+            }
+        } catch (IOException e) {
+            Registro.warn("Error al cerrar sesión WebSocket: " + e.getMessage());
+        }
+    }
+}
@@ -1,440 +1,480 @@
 package SERVIDOR;
 
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
-public class ControladorCliente implements Runnable {
-    private final Socket clienteSocket;
-    private final BufferedReader in;
-    private final PrintWriter out;
-    private JugadorPartida jugador;
-    private Partida partida;
-    private boolean esCreador;
-    private static boolean mensajeServidorMostrado = false;
+public class ControladorCliente implements Runnable, OyentePartida {
+    private final Conexion conexion;
+    private final GestorPartidas gestorPartidas;
+    // texto hasta que el cliente negocia el protocolo binario
+    private volatile SalidaCliente salida;
+    private boolean negociable = true;
+    // los eventos de la partida y la cola los cambian desde otros hilos
+    private volatile JugadorPartida jugador;
+    private volatile Partida partida;
+    private volatile boolean esCreador;
+    // en la cola de partida rápida; se conserva hasta que termina la partida asignada
+    private volatile ColaEmparejamiento.Solicitud solicitud;
+    // dato que el cliente debe enviar en su próxima línea; así ninguna
+    // petición deja al hilo bloqueado esperando a que el usuario teclee
+    private enum Peticion { NINGUNA, NOMBRE_CREAR, NOMBRE_UNIRSE, CODIGO_UNIRSE, NOMBRE_RAPIDA }
+    private volatile Peticion peticion = Peticion.NINGUNA;
+    private String nombrePedido;
+    private static final byte[] CONFIRMACION_BINARIO =
+            (ProtocoloBinario.CONFIRMACION + "\n").getBytes(StandardCharsets.UTF_8);
+    private static final AtomicBoolean mensajeServidorMostrado = new AtomicBoolean(false);
     
     public ControladorCliente(Socket socket) throws IOException {
-        this.clienteSocket = socket;
-        this.in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-        this.out = new PrintWriter(socket.getOutputStream(), true);
+        this(new ConexionSocket(socket), GestorPartidas.getInstance());
+    }
+    
+    public ControladorCliente(Conexion conexion) {
+        this(conexion, GestorPartidas.getInstance());
+    }
+    
+    public ControladorCliente(Conexion conexion, GestorPartidas gestorPartidas) {
+        this.conexion = conexion;
+        this.gestorPartidas = gestorPartidas;
+        this.salida = new SalidaTexto(conexion);
         this.esCreador = false;
     }
     
+    /** Sesión con un formato fijo desde el principio, sin negociación (pasarela WebSocket). */
+    ControladorCliente(Conexion conexion, GestorPartidas gestorPartidas, SalidaCliente salida) {
+        this(conexion, gestorPartidas);
+        this.salida = salida;
+        this.negociable = false;
+    }
+    
+    /** Modo de un hilo por cliente; las demás conexiones entregan las órdenes con atenderOrden. */
     @Override
     public void run() {
+        if (!(conexion instanceof ConexionSocket)) {
+            throw new IllegalStateException("La conexión " + conexion.getDireccion() + " no se atiende en un hilo propio");
+        }
         try {
-            synchronized(ControladorCliente.class) {
-                if (!mensajeServidorMostrado) {
-                    System.out.println("Servidor Trivial iniciado en puerto 5000");
-                    mensajeServidorMostrado = true;
-                }
-            }
-            System.out.println("Nuevo cliente conectado desde: " + clienteSocket.getInetAddress());
-            
-            mostrarMenuPrincipal();
-            String opcion;
-            while ((opcion = in.readLine()) != null) {
-                procesarOpcion(opcion.trim());
-            }
-        } catch (SocketException se) {
-            
-            System.out.println("Cliente desconectado normalmente: " + 
-                (jugador != null ? jugador.getNombre() : "desconocido"));
+            iniciarSesion();
+            ((ConexionSocket) conexion).atender(this::atenderOrden);
             limpiarRecursos();
         } catch (IOException e) {
-            System.err.println("Error de E/S con cliente: " + e.getMessage());
-            limpiarRecursos();
-        } catch (InterruptedException e) {
-            System.err.println("Operación interrumpida: " + e.getMessage());
-            Thread.currentThread().interrupt();
+            terminarPorError(e);
+        } catch (RuntimeException e) {
+            // sin esto el jugador quedaría dentro de su partida con la conexión abierta
+            Registro.error("Error atendiendo a " + conexion.getDireccion() + ": " + e);
             limpiarRecursos();
         }
     }
     
-    private void mostrarMenuPrincipal() {
-        out.println("=== TRIVIAL MULTIJUGADOR ===");
-        out.println("1. Crear partida");
-        out.println("2. Unirse a partida");
-        out.println("3. Salir");
-        out.println("Seleccione una opción:");
-        out.flush(); // asegurar que enviamos todo
+    void iniciarSesion() {
+        if (mensajeServidorMostrado.compareAndSet(false, true)) {
+            Registro.info("Servidor Trivial iniciado en puerto 5000");
+        }
+        Registro.info("Nuevo cliente conectado desde: " + conexion.getDireccion());
+        salida.menuPrincipal();
+    }
+    
+    /** Atiende una orden recibida del cliente. */
+    void atenderOrden(Orden orden) {
+        if (orden.getTipo() == Orden.Tipo.LINEA) {
+            procesarOpcion(orden.getLinea().trim());
+        } else {
+            procesarOrden(orden);
+        }
     }
     
-    private void procesarOpcion(String opcion) throws IOException, InterruptedException {
+    /** Punto de entrada del modo NIO cuando el cliente cierra la conexión. */
+    void atenderDesconexion() {
+        Registro.info("Cliente desconectado normalmente: " + 
+            (jugador != null ? jugador.getNombre() : "desconocido"));
+        limpiarRecursos();
+    }
+    
+    private void terminarPorError(IOException e) {
+        if (e instanceof SocketException || e instanceof EOFException) {
+            Registro.info("Cliente desconectado normalmente: " + 
+                (jugador != null ? jugador.getNombre() : "desconocido"));
+        } else {
+            Registro.warn("Error de E/S con cliente: " + e.getMessage());
+        }
+        limpiarRecursos();
+    }
+    
+    private void procesarOpcion(String opcion) {
+        if (negociable) {
+            // DecodificadorEntrada ya ha pasado a leer tramas
+            negociable = false;
+            if (ProtocoloBinario.esNegociacion(opcion)) {
+                conexion.enviar(CONFIRMACION_BINARIO);
+                salida = new SalidaBinaria(conexion);
+                salida.menuPrincipal();
+                return;
+            }
+        }
+        if (peticion != Peticion.NINGUNA) {
+            atenderPeticion(opcion);
+            return;
+        }
+        Partida actual = partida;
+        if (actual != null) {
+            // en la sala las líneas son opciones del creador; en juego, respuestas
+            if (actual.getEstado() == EstadoPartida.ESPERANDO) {
+                procesarOpcionSala(actual, opcion);
+            } else {
+                procesarRespuesta(actual, opcion);
+            }
+            return;
+        }
+        if (solicitud != null) {
+            // mientras busca rivales solo puede volver al menú
+            if (opcion.equals("3")) {
+                abandonar();
+            } else {
+                salida.aviso(SalidaCliente.Aviso.BUSCANDO_PARTIDA);
+            }
+            return;
+        }
         switch (opcion) {
             case "1":
-                crearPartida();
+                pedirNombre(Peticion.NOMBRE_CREAR);
                 break;
             case "2":
-                unirseAPartida();
+                pedirNombre(Peticion.NOMBRE_UNIRSE);
                 break;
             case "3":
                 realizarDesconexion();
                 return; 
+            case "4":
+                pedirNombre(Peticion.NOMBRE_RAPIDA);
+                break;
             default:
-                out.println("Opción no válida");
-                mostrarMenuPrincipal();
+                salida.aviso(SalidaCliente.Aviso.OPCION_NO_VALIDA);
+                salida.menuPrincipal();
         }
     }
     
-    private void crearPartida() throws IOException, InterruptedException {
-        out.println("Introduce tu nombre:");
-        String nombre = in.readLine();
+    /** Órdenes con tipo: se aceptan según el estado de la sesión, no según el menú. */
+    private void procesarOrden(Orden orden) {
+        Partida actual = partida;
+        boolean enMenu = actual == null && solicitud == null;
+        // una orden con tipo trae sus datos; no cabe con un dato pedido pendiente
+        if (peticion != Peticion.NINGUNA) {
+            salida.aviso(SalidaCliente.Aviso.ORDEN_NO_VALIDA);
+            return;
+        }
+        switch (orden.getTipo()) {
+            case CREAR:
+                if (enMenu) {
+                    crearPartida(orden.getNombre());
+                    return;
+                }
+                break;
+            case UNIRSE:
+                if (enMenu) {
+                    unirseAPartida(orden.getNombre(), orden.getCodigo());
+                    return;
+                }
+                break;
+            case PARTIDA_RAPIDA:
+                if (enMenu) {
+                    partidaRapida(orden.getNombre());
+                    return;
+                }
+                break;
+            case COMENZAR:
+                if (actual != null && actual.getEstado() == EstadoPartida.ESPERANDO) {
+                    comenzar(actual);
+                    return;
+                }
+                break;
+            case ESPERAR:
+                if (actual != null && actual.getEstado() == EstadoPartida.ESPERANDO) {
+                    esperar();
+                    return;
+                }
+                break;
+            case RESPONDER:
+                if (actual != null && actual.getEstado() != EstadoPartida.ESPERANDO) {
+                    procesarRespuesta(actual, orden.getRespuesta());
+                    return;
+                }
+                break;
+            case SALIR:
+                if (enMenu) {
+                    realizarDesconexion();
+                } else {
+                    abandonar();
+                }
+                return;
+            default:
+        }
+        salida.aviso(SalidaCliente.Aviso.ORDEN_NO_VALIDA);
+    }
+    
+    private void pedirNombre(Peticion siguiente) {
+        salida.pedirNombre();
+        peticion = siguiente;
+    }
+    
+    private void atenderPeticion(String linea) {
+        Peticion atendida = peticion;
+        peticion = Peticion.NINGUNA;
+        switch (atendida) {
+            case NOMBRE_CREAR:
+                crearPartida(linea);
+                break;
+            case NOMBRE_UNIRSE:
+                nombrePedido = linea;
+                salida.pedirCodigo();
+                peticion = Peticion.CODIGO_UNIRSE;
+                break;
+            case CODIGO_UNIRSE:
+                String nombre = nombrePedido;
+                nombrePedido = null;
+                unirseAPartida(nombre, linea);
+                break;
+            case NOMBRE_RAPIDA:
+                partidaRapida(linea);
+                break;
+            default:
+        }
+    }
+    
+    private void crearPartida(String nombre) {
         jugador = new JugadorPartida(nombre);
         esCreador = true;
         
-        String codigo = GestorPartidas.getInstance().crearPartida();
-        partida = GestorPartidas.getInstance().obtenerPartida(codigo);
-        partida.agregarJugador(jugador, true);
+        String codigo = gestorPartidas.crearPartida();
+        Partida nueva = gestorPartidas.obtenerPartida(codigo);
+        nueva.agregarOyente(this);
+        nueva.agregarJugador(jugador, true);
+        gestorPartidas.registrarJugadorEnPartida(jugador.getNombre(), codigo);
+        partida = nueva;
         
-        out.println("Partida creada con código: " + codigo);
-        esperarJugadores();
+        salida.partidaCreada(codigo);
     }
     
-    private void unirseAPartida() throws IOException, InterruptedException {
-        out.println("Introduce tu nombre:");
-        String nombre = in.readLine();
-        out.println("Introduce el código de la partida:");
-        String codigo = in.readLine();
-        
-        partida = GestorPartidas.getInstance().obtenerPartida(codigo);
-        if (partida == null) {
-            out.println("Partida no encontrada");
-            mostrarMenuPrincipal();
+    private void unirseAPartida(String nombre, String codigo) {
+        Partida buscada = gestorPartidas.obtenerPartida(codigo);
+        if (buscada == null) {
+            salida.aviso(SalidaCliente.Aviso.PARTIDA_NO_ENCONTRADA);
+            salida.menuPrincipal();
             return;
         }
         
         jugador = new JugadorPartida(nombre);
-        if (!partida.agregarJugador(jugador, false)) {
-            out.println("No se puede unir a la partida");
-            mostrarMenuPrincipal();
+        // nos suscribimos antes de entrar: el cuarto jugador arranca la partida
+        buscada.agregarOyente(this);
+        if (!buscada.agregarJugador(jugador, false)) {
+            buscada.eliminarOyente(this);
+            jugador = null;
+            salida.aviso(SalidaCliente.Aviso.NO_SE_PUEDE_UNIR);
+            salida.menuPrincipal();
             return;
         }
+        gestorPartidas.registrarJugadorEnPartida(jugador.getNombre(), codigo);
+        partida = buscada;
         
-        esperarJugadores();
+        // no se bloquea: la sala se gestiona con los avisos de OyentePartida
+        // y las líneas que llegan mientras la partida está en ESPERANDO
+        salida.unidoAPartida(codigo);
     }
     
-    private void esperarJugadores() throws IOException, InterruptedException {
-        if (esCreador) {
-            boolean esperandoJugadores = true;
-            int jugadoresAnteriores = 0;
-            
-            out.println("\nPartida creada. Esperando que se unan jugadores...");
-            
-            while (esperandoJugadores) {
-                int jugadoresActuales = partida.getJugadores().size();
-                
-                // Si se ha unido un nuevo jugador y hay al menos 2 jugadores
-                if (jugadoresActuales > jugadoresAnteriores && jugadoresActuales >= 2) {
-                    mostrarMenuComenzar();
-                    String opcion = in.readLine();
-                    
-                    if (opcion.equals("1")) {
-                        if (partida.puedeComenzar()) {
-                            esperandoJugadores = false;
-                            partida.comenzarPartida();
-                        } else {
-                            out.println("\nNo hay suficientes jugadores para comenzar (mínimo 2).");
-                            out.println("\nEsperando que se unan más jugadores...");
-                        }
-                    } else if (opcion.equals("2")) {
-                        out.println("\nEsperando que se unan más jugadores...");
-                    }
-                    
-                    jugadoresAnteriores = jugadoresActuales;
-                }
-                
-                Thread.sleep(1000);
-            }
-        } else {
-            out.println("\nTe has unido a la partida. Esperando a que el creador inicie la partida...");
-            while (partida.getEstado() == EstadoPartida.ESPERANDO) {
-                Thread.sleep(1000);
-            }
-        }
-        
-        if (partida.getEstado() == EstadoPartida.EN_CURSO) {
-            iniciarPartida();
-        }
+    private void partidaRapida(String nombre) {
+        jugador = new JugadorPartida(nombre);
+        // antes de encolar: si este jugador completa el grupo, la partida arranca dentro de encolar
+        salida.buscandoPartida();
+        solicitud = gestorPartidas.getEmparejamiento().encolar(jugador, this, this::emparejado);
     }
     
-    private void mostrarMenuComenzar() {
-        out.println("\n=== MENÚ DE INICIO ===");
-        out.println("Jugadores conectados: " + partida.getJugadores().size());
-        out.println("1. Comenzar partida");
-        out.println("2. Seguir esperando");
-        out.println("Seleccione una opción:");
-        out.flush();
+    /** Llamado por la cola, desde el hilo que forma la partida, antes de entrar en ella. */
+    private void emparejado(Partida asignada) {
+        partida = asignada;
+        salida.partidaEncontrada(asignada.getCodigo());
     }
     
-    private void iniciarPartida() throws IOException {
-        try {
-            out.println("\n¡La partida comienza!");
-            
-            for (int ronda = 1; ronda <= partida.getTOTAL_RONDAS(); ronda++) {
-                try {
-                    out.println("\n=== INICIANDO RONDA " + ronda + " ===");
-                    out.flush();
-                    jugarRonda();
-                    // pausa entre rondas
-                    if (ronda < partida.getTOTAL_RONDAS()) {
-                        Thread.sleep(1000);
-                    }
-                } catch (IOException e) {
-                    System.err.println("Error en ronda " + ronda + ": " + e.getMessage());
-                    if (e.getMessage().contains("Error de sincronización")) {
-                        continue; 
-                    }
-                    throw e;
-                }
-            }
-            mostrarResultadosFinales();
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Operación interrumpida", e);
-        } finally {
-            limpiarEstado();
+    /**
+     * Saca al jugador de la cola de partida rápida y devuelve la partida en
+     * la que está. Si la cola ya le había asignado una, espera a que termine
+     * de meterlo (es cuestión de microsegundos) para que al salir de ella no
+     * quede dentro un jugador sin sesión.
+     */
+    private Partida salirDeLaCola() {
+        ColaEmparejamiento.Solicitud enCola = solicitud;
+        solicitud = null;
+        if (enCola != null && !gestorPartidas.getEmparejamiento().retirar(enCola)) {
+            enCola.getPartida().join();
         }
+        return partida;
     }
-    private void jugarRonda() throws IOException {
-        try {
-            if (partida == null) {
-                throw new IOException("La partida no está inicializada");
-            }
-
-            int rondaActual = partida.getRondaActual();
-            Pregunta pregunta = partida.getPreguntaActual();
-            if (pregunta == null) {
-                throw new IOException("No hay pregunta disponible para la ronda " + rondaActual);
-            }
-            // Calcular tiempo 
-            int tiempoRonda = 100 - ((rondaActual - 1) * 20);
-            
-            System.out.println("DEBUG - Hilo " + Thread.currentThread().getId() + " iniciando ronda " + rondaActual);
-            
-            try {
-                System.out.println("DEBUG - Hilo " + Thread.currentThread().getId() + " esperando en barreraPregunta para ronda " + rondaActual);
-                partida.getBarreraPregunta().await(5, TimeUnit.SECONDS);
-                
-                mostrarInformacionRonda(rondaActual, pregunta);
-                out.println("\nTienes " + tiempoRonda + " segundos para responder.");
-                out.println("Escribe tu respuesta (A, B, C o D): ");
-                out.flush();
-                
-                boolean respondido = procesarRespuestaConTiempo(tiempoRonda);
-                if (!respondido) {
-                    out.println("\n¡Tiempo agotado!");
-                } else {
-                    out.println("\nRespuesta registrada. Esperando a que respondan los demás jugadores...");
-                    out.flush();
-                }
-                System.out.println("DEBUG - Hilo " + Thread.currentThread().getId() + " esperando en barreraRonda para ronda " + rondaActual);
-                
-                // Mostrar jugadores que faltan por responder
-                while (!partida.hanRespondidoTodos()) {
-                    int jugadoresRestantes = partida.getJugadoresSinResponder();
-                    out.println("Faltan " + jugadoresRestantes + " jugadores por responder...");
-                    out.flush();
-                    Thread.sleep(2000); // Actualizar cada 2 segundos
-                }
-                
-                partida.getBarreraRonda().await(tiempoRonda + 5, TimeUnit.SECONDS);
-                
-                mostrarResultadosRonda();
-                
-                if (rondaActual < partida.getTOTAL_RONDAS()) {
-                    if (esCreador) {
-                        out.println("\nPreparando siguiente ronda...");
-                        Thread.sleep(3000);
-                        System.out.println("DEBUG - Preparando siguiente ronda");
-                        partida.prepararSiguienteRonda();
-                    }
-                    System.out.println("DEBUG - Hilo " + Thread.currentThread().getId() + " esperando barreraSiguienteRonda para ronda " + rondaActual);
-                    partida.getBarreraSiguienteRonda().await(5, TimeUnit.SECONDS);
-                }
-            } catch (BrokenBarrierException | TimeoutException e) {
-                System.err.println("DEBUG - Error en barrera: " + e.getMessage() + " en ronda " + rondaActual);
-                if (rondaActual < partida.getTOTAL_RONDAS()) {
-                    throw new IOException("Error de sincronización en ronda " + rondaActual);
-                }
-            }
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new IOException("Operación interrumpida", e);
+    
+    private void procesarOpcionSala(Partida actual, String opcion) {
+        switch (opcion) {
+            case "1":
+                comenzar(actual);
+                break;
+            case "2":
+                esperar();
+                break;
+            default:
+                salida.aviso(esCreador ? SalidaCliente.Aviso.OPCION_NO_VALIDA : SalidaCliente.Aviso.ESPERANDO_CREADOR);
         }
     }
     
-    private void mostrarInformacionRonda(int rondaActual, Pregunta pregunta) {
-        if (pregunta == null) {
-            out.println("Error: No hay pregunta disponible");
-            return;
+    private void comenzar(Partida actual) {
+        if (!esCreador) {
+            salida.aviso(SalidaCliente.Aviso.ESPERANDO_CREADOR);
+        } else if (!actual.comenzarPartida() && actual.getEstado() == EstadoPartida.ESPERANDO) {
+            salida.aviso(SalidaCliente.Aviso.JUGADORES_INSUFICIENTES);
         }
-
-        out.println("\n=== RONDA " + rondaActual + " DE " + partida.getTOTAL_RONDAS() + " ===");
-        
-        out.println("\nPregunta: " + pregunta.getEnunciado());
-        
-        if (pregunta.getCodigo() != null && !pregunta.getCodigo().isEmpty()) {
-            out.println("\nCódigo:\n" + pregunta.getCodigo());
+    }
+    
+    private void esperar() {
+        salida.aviso(esCreador ? SalidaCliente.Aviso.ESPERANDO_JUGADORES : SalidaCliente.Aviso.ESPERANDO_CREADOR);
+    }
+    
+    private void procesarRespuesta(Partida actual, String respuesta) {
+        if (!actual.registrarRespuesta(jugador, respuesta)) {
+            salida.aviso(SalidaCliente.Aviso.FUERA_DE_RONDA);
         }
-        
-        mostrarOpciones(pregunta);
-        out.flush();
     }
     
-    private void mostrarOpciones(Pregunta pregunta) {
-        List<String> opciones = pregunta.getOpciones();
-        for (int i = 0; i < opciones.size(); i++) {
-            out.println((char)('A' + i) + ") " + opciones.get(i));
+    @Override
+    public void jugadorUnido(JugadorPartida nuevo, int totalJugadores) {
+        if (esCreador && totalJugadores >= 2) {
+            salida.menuComenzar(totalJugadores);
         }
     }
     
-    private boolean procesarRespuestaConTiempo(int tiempoRonda) {
-        try {
-            CompletableFuture<String> futureRespuesta = new CompletableFuture<>();
-            
-            Thread hiloRespuesta = new Thread(() -> {
-                try {
-                    String respuesta = in.readLine();
-                    if (!futureRespuesta.isCancelled()) {
-                        futureRespuesta.complete(respuesta);
-                    }
-                } catch (IOException e) {
-                    futureRespuesta.completeExceptionally(e);
-                }
-            });
-            
-            hiloRespuesta.setDaemon(true);
-            hiloRespuesta.start();
-            
-            try {
-                String respuesta = futureRespuesta.get(tiempoRonda, TimeUnit.SECONDS);
-                partida.registrarRespuesta(jugador, respuesta);
-                return true;
-            } catch (TimeoutException e) {
-                futureRespuesta.cancel(true);
-                partida.registrarRespuesta(jugador, null);
-                return false;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.err.println("Respuesta interrumpida: " + e.getMessage());
-                return false;
-            } catch (ExecutionException e) {
-                System.err.println("Error al procesar respuesta: " + e.getCause().getMessage());
-                return false;
+    @Override
+    public void jugadorSalio(JugadorPartida saliente, int totalJugadores) {
+        Partida actual = partida;
+        if (esCreador && actual != null && actual.getEstado() == EstadoPartida.ESPERANDO) {
+            salida.jugadorSalio(saliente);
+            if (totalJugadores >= 2) {
+                salida.menuComenzar(totalJugadores);
+            } else {
+                salida.aviso(SalidaCliente.Aviso.ESPERANDO_JUGADORES);
             }
-            
-        } catch (IllegalStateException e) {
-            System.err.println("Error de estado al procesar respuesta: " + e.getMessage());
-            return false;
         }
     }
     
-    private void mostrarResultadosRonda() {
-        out.println("\n=== RESULTADOS DE LA RONDA " + partida.getRondaActual() + " ===");
-        List<JugadorPartida> jugadoresOrdenados = partida.obtenerRanking();
-        for (JugadorPartida j : jugadoresOrdenados) {
-            out.println(j.getNombre() + ": " + j.getPuntuacionTotal() + " puntos");
+    @Override
+    public void partidaIniciada() {
+        salida.partidaIniciada();
+    }
+    
+    @Override
+    public void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos) {
+        salida.rondaIniciada(ronda, totalRondas, pregunta, segundos);
+    }
+    
+    @Override
+    public void respuestaRegistrada(JugadorPartida quien, int jugadoresSinResponder) {
+        JugadorPartida propio = jugador;
+        Partida actual = partida;
+        if (quien == propio) {
+            salida.respuestaRegistrada();
+        }
+        if (propio != null && actual != null && propio.haRespondido(actual.getRondaActual())
+                && jugadoresSinResponder > 0) {
+            salida.faltanPorResponder(jugadoresSinResponder);
         }
-        out.flush();
     }
     
-    private void mostrarResultadosFinales() {
-        out.println("\n=== RESULTADOS FINALES ===");
-        
-        if (!partida.hayGanador()) {
-            out.println("\n¡No hay ganador! Ningún jugador consiguió puntos.");
-        } else if (partida.hayEmpate()) {
-            List<JugadorPartida> ganadores = partida.obtenerGanadores();
-            out.println("\n¡EMPATE entre los siguientes jugadores!");
-            for (JugadorPartida ganador : ganadores) {
-                out.println("- " + ganador.getNombre() + ": " + ganador.getPuntuacionTotal() + " puntos");
-            }
-        } else {
-            JugadorPartida ganador = partida.obtenerGanadores().get(0);
-            out.println("\n ¡GANADOR: " + ganador.getNombre() + "!");
-            out.println("Puntuación: " + ganador.getPuntuacionTotal() + " puntos");
+    @Override
+    public void rondaFinalizada(Clasificacion clasificacion, List<JugadorPartida> sinResponder) {
+        salida.rondaFinalizada(clasificacion, sinResponder.contains(jugador));
+    }
+    
+    @Override
+    public void partidaFinalizada(Clasificacion resultado) {
+        if (partida == null) {
+            return;
         }
-
-        out.println("\nRanking final:");
-        List<JugadorPartida> ranking = partida.obtenerRanking();
-        for (int i = 0; i < ranking.size(); i++) {
-            JugadorPartida j = ranking.get(i);
-            out.println((i + 1) + ". " + j.getNombre() + ": " + j.getPuntuacionTotal() + " puntos");
+        salida.resultadosFinales(resultado);
+        limpiarEstado();
+    }
+    
+    @Override
+    public void partidaCancelada() {
+        if (partida == null) {
+            return;
         }
-        out.println("\n¡Gracias por jugar!");
-        out.flush();
+        salida.partidaCancelada();
+        limpiarEstado();
     }
     
     private void realizarDesconexion() {
+        Partida partidaActual = salirDeLaCola();
+        JugadorPartida jugadorActual = jugador;
         try {
-            if (jugador != null) {
-                System.out.println("Cliente desconectado: " + jugador.getNombre());
+            if (jugadorActual != null) {
+                Registro.info("Cliente desconectado: " + jugadorActual.getNombre());
             } else {
-                System.out.println("Cliente desconectado");
+                Registro.info("Cliente desconectado");
             }
             
-            if (partida != null) {
-                partida.eliminarJugador(jugador);
+            if (partidaActual != null) {
+                partidaActual.eliminarOyente(this);
+                partidaActual.eliminarJugador(jugadorActual);
                 partida = null;
             }
             
-            out.println("Conexión cerrada. ¡Hasta pronto!");
-            out.flush();
+            salida.despedida();
             
             // Limpiamos el estado
             jugador = null;
             esCreador = false;
             
-            // pausa para asegurar el envio
-            Thread.sleep(100);
-            
-            // Cerramos la conexión
-            if (!clienteSocket.isClosed()) {
-                clienteSocket.close();
-            }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            // la conexión cierra después de vaciar lo pendiente, despedida incluida
+            conexion.cerrar();
         } catch (IOException e) {
-            e.printStackTrace();
+            Registro.warn("Error al cerrar la conexión: " + e.getMessage());
         }
     }
+    /** Sale de la cola o de la partida y vuelve al menú sin cerrar la conexión. */
+    private void abandonar() {
+        Partida partidaActual = salirDeLaCola();
+        JugadorPartida jugadorActual = jugador;
+        if (partidaActual != null) {
+            partidaActual.eliminarOyente(this);
+            partidaActual.eliminarJugador(jugadorActual);
+        }
+        limpiarEstado();
+    }
+    
     private void limpiarEstado() {
         esCreador = false;
+        solicitud = null;
         partida = null;
         jugador = null;
-        mostrarMenuPrincipal();
+        salida.menuPrincipal();
     }
     
     private void limpiarRecursos() {
+        // partidaFinalizada puede limpiar estos campos desde otro hilo a la vez
+        Partida partidaActual = salirDeLaCola();
+        JugadorPartida jugadorActual = jugador;
         try {
-            if (partida != null && jugador != null) {
-                partida.eliminarJugador(jugador);
-                System.out.println("Jugador " + jugador.getNombre() + " eliminado de la partida " + 
-                                 partida.getCodigo());
+            if (partidaActual != null && jugadorActual != null) {
+                partidaActual.eliminarOyente(this);
+                partidaActual.eliminarJugador(jugadorActual);
+                Registro.info("Jugador " + jugadorActual.getNombre() + " eliminado de la partida " + 
+                                 partidaActual.getCodigo());
             }
             
-            if (in != null) in.close();
-            if (out != null) out.close();
-            if (clienteSocket != null && !clienteSocket.isClosed()) {
-                clienteSocket.close();
-            }
+            conexion.cerrar();
         } catch (IOException e) {
-            System.err.println("Error al cerrar recursos: " + e.getMessage());
+            Registro.warn("Error al cerrar recursos: " + e.getMessage());
         } finally {
             jugador = null;
+            solicitud = null;
             partida = null;
             esCreador = false;
         }
@@ -0,0 +1,104 @@
+package SERVIDOR;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import static SERVIDOR.ProtocoloBinario.*;
+
+/**
+ * Entrada de una conexión. Empieza separando líneas con
+ * {@link DecodificadorLineas}; si la primera línea es
+ * {@link ProtocoloBinario#NEGOCIACION}, los bytes siguientes se leen como
+ * tramas binarias.
+ *
+ * Las líneas se entregan como {@link Orden#linea(String)} y cada trama como
+ * la {@link Orden} de su opcode. El cambio se hace aquí, en el hilo que lee,
+ * para que ni un byte posterior a la negociación se interprete como texto.
+ */
+final class DecodificadorEntrada {
+    private final DecodificadorLineas lineas = new DecodificadorLineas();
+    private boolean primeraLinea = true;
+    private boolean binario;
+
+    // trama en curso, cabecera incluida
+    private byte[] trama = new byte[64];
+    private int recibidos;
+
+    void procesar(ByteBuffer datos, Consumer<Orden> destino) throws IOException {
+        while (datos.hasRemaining()) {
+            if (binario) {
+                procesarTramas(datos, destino);
+                return;
+            }
+            String linea = lineas.siguiente(datos);
+            if (linea == null) {
+                return;
+            }
+            if (primeraLinea) {
+                primeraLinea = false;
+                binario = esNegociacion(linea);
+            }
+            destino.accept(Orden.linea(linea));
+        }
+    }
+
+    private void procesarTramas(ByteBuffer datos, Consumer<Orden> destino) throws IOException {
+        while (datos.hasRemaining()) {
+            if (recibidos < 2) {
+                trama[recibidos++] = datos.get();
+                continue;
+            }
+            int longitud = ((trama[0] & 0xFF) << 8) | (trama[1] & 0xFF);
+            if (longitud == 0 || longitud > MAX_TRAMA_ENTRADA) {
+                throw new IOException("Trama no válida de " + longitud + " bytes");
+            }
+            if (trama.length < 2 + longitud) {
+                trama = Arrays.copyOf(trama, 2 + longitud);
+            }
+            int cuantos = Math.min(datos.remaining(), 2 + longitud - recibidos);
+            datos.get(trama, recibidos, cuantos);
+            recibidos += cuantos;
+            if (recibidos == 2 + longitud) {
+                recibidos = 0;
+                traducir(new DataInputStream(new ByteArrayInputStream(trama, 2, longitud)), destino);
+                if (trama.length > 256) {
+                    trama = new byte[64];
+                }
+            }
+        }
+    }
+
+    private static void traducir(DataInputStream carga, Consumer<Orden> destino) throws IOException {
+        int opcode = carga.readUnsignedByte();
+        switch (opcode) {
+            case CREAR:
+                destino.accept(Orden.crear(carga.readUTF()));
+                break;
+            case UNIRSE:
+                String nombre = carga.readUTF();
+                destino.accept(Orden.unirse(nombre, carga.readUTF()));
+                break;
+            case COMENZAR:
+                destino.accept(Orden.de(Orden.Tipo.COMENZAR));
+                break;
+            case ESPERAR:
+                destino.accept(Orden.de(Orden.Tipo.ESPERAR));
+                break;
+            case RESPONDER:
+                destino.accept(Orden.responder(carga.readUnsignedByte()));
+                break;
+            case SALIR:
+                destino.accept(Orden.de(Orden.Tipo.SALIR));
+                break;
+            case PARTIDA_RAPIDA:
+                destino.accept(Orden.partidaRapida(carga.readUTF()));
+                break;
+            default:
+                throw new IOException("Opcode desconocido: " + opcode);
+        }
+    }
+}
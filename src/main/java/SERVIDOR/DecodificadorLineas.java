@@ -0,0 +1,58 @@
+package SERVIDOR;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Separa en líneas UTF-8 un flujo de bytes que llega troceado. Conserva entre
+ * llamadas la línea incompleta, de modo que un carácter multibyte partido en
+ * dos lecturas se decodifica correctamente.
+ */
+final class DecodificadorLineas {
+    static final int MAX_LONGITUD_LINEA = 8192;
+    private static final byte[] VACIO = new byte[0];
+
+    private byte[] pendiente = VACIO;
+    private int longitud;
+
+    /**
+     * Consume bytes hasta completar una línea y la devuelve, o devuelve null
+     * si se agotan antes; lo que quede tras la línea sigue en {@code datos}.
+     */
+    String siguiente(ByteBuffer datos) throws IOException {
+        while (datos.hasRemaining()) {
+            byte b = datos.get();
+            if (b == '\n') {
+                return extraerLinea();
+            }
+            añadir(b);
+        }
+        return null;
+    }
+
+    private void añadir(byte b) throws IOException {
+        if (longitud == pendiente.length) {
+            if (longitud >= MAX_LONGITUD_LINEA) {
+                throw new IOException("Línea demasiado larga");
+            }
+            pendiente = Arrays.copyOf(pendiente, Math.max(64, longitud * 2));
+        }
+        pendiente[longitud++] = b;
+    }
+
+    private String extraerLinea() {
+        int fin = longitud;
+        if (fin > 0 && pendiente[fin - 1] == '\r') {
+            fin--;
+        }
+        String linea = new String(pendiente, 0, fin, StandardCharsets.UTF_8);
+        longitud = 0;
+        // no retenemos el buffer de líneas largas en conexiones ociosas
+        if (pendiente.length > 256) {
+            pendiente = VACIO;
+        }
+        return linea;
+    }
+}
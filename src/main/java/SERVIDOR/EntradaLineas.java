@@ -0,0 +1,131 @@
+package SERVIDOR;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Entrada por eventos de las conexiones que no tienen un hilo por cliente
+ * ({@link ConexionNIO}, {@link ConexionWebSocket}).
+ *
+ * Las órdenes llegan ya decodificadas desde el hilo de red. Mientras la sesión
+ * está ociosa no ocupa ningún hilo: cada orden se despacha a un hilo trabajador
+ * solo cuando llega; las que llegan mientras trabaja esperan en la cola a
+ * que termine con la anterior.
+ */
+final class EntradaLineas {
+    private final Executor trabajadores;
+    private final String direccion;
+    // cierra el transporte cuando el cliente se va o falla la sesión
+    private final Runnable cerrarTransporte;
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final ArrayDeque<Orden> ordenes = new ArrayDeque<>(4);
+    private boolean ocupada;
+    private boolean cerrada;
+    private boolean cerradaPorCliente;
+    private boolean cierreNotificado;
+    private Consumer<Orden> manejadorOrdenes;
+    private Runnable manejadorCierre;
+
+    EntradaLineas(Executor trabajadores, String direccion, Runnable cerrarTransporte) {
+        this.trabajadores = trabajadores;
+        this.direccion = direccion;
+        this.cerrarTransporte = cerrarTransporte;
+    }
+
+    void setManejadores(Consumer<Orden> manejadorOrdenes, Runnable manejadorCierre) {
+        this.manejadorOrdenes = manejadorOrdenes;
+        this.manejadorCierre = manejadorCierre;
+    }
+
+    // --- Hilo de red ---
+
+    void ordenRecibida(Orden orden) {
+        cerrojo.lock();
+        try {
+            if (cerrada) {
+                return;
+            }
+            if (ocupada) {
+                ordenes.add(orden);
+                return;
+            }
+            ocupada = true;
+        } finally {
+            cerrojo.unlock();
+        }
+        trabajadores.execute(() -> despachar(orden));
+    }
+
+    void cerradaPorCliente() {
+        boolean despacharCierre;
+        cerrojo.lock();
+        try {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            cerradaPorCliente = true;
+            despacharCierre = !ocupada;
+            ocupada = true;
+        } finally {
+            cerrojo.unlock();
+        }
+        cerrarTransporte.run();
+        if (despacharCierre) {
+            trabajadores.execute(() -> despachar(null));
+        }
+    }
+
+    // --- Hilo trabajador ---
+
+    private void despachar(Orden primera) {
+        Orden orden = primera;
+        while (true) {
+            if (orden != null) {
+                try {
+                    manejadorOrdenes.accept(orden);
+                } catch (RuntimeException e) {
+                    Registro.error("Error atendiendo a " + direccion + ": " + e);
+                    cerradaPorCliente();
+                }
+            }
+            boolean notificarCierre = false;
+            cerrojo.lock();
+            try {
+                orden = ordenes.poll();
+                if (orden == null) {
+                    if (cerradaPorCliente && !cierreNotificado) {
+                        cierreNotificado = true;
+                        notificarCierre = true;
+                    } else {
+                        ocupada = false;
+                        return;
+                    }
+                }
+            } finally {
+                cerrojo.unlock();
+            }
+            if (notificarCierre) {
+                manejadorCierre.run();
+                return;
+            }
+        }
+    }
+
+    /** Cierre pedido por el servidor; devuelve false si ya estaba cerrada. */
+    boolean cerrar() {
+        cerrojo.lock();
+        try {
+            if (cerrada) {
+                return false;
+            }
+            cerrada = true;
+            return true;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
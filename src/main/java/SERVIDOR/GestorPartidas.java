@@ -6,73 +6,214 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
+ * Uno solo por proceso; la limpieza la arranca quien es dueño del proceso.
  *
  * @author aespa
  */
 public class GestorPartidas {
     
-    private static final GestorPartidas instancia = new GestorPartidas();
-    private final Map<String, Partida> partidas;
-    private final Map<String, List<String>> codigosPorJugador;
+    private static final int PERIODO_LIMPIEZA_S = 30;
+    private static final long RETENCION_MS = TimeUnit.SECONDS.toMillis(Long.getLong("trivial.partidas.retencion-s", 60));
+    private static final long ESPERA_MAXIMA_MS = TimeUnit.SECONDS.toMillis(Long.getLong("trivial.partidas.espera-max-s", 600));
+    private static final GestorPartidas instancia =
+            new GestorPartidas(ClasificacionGlobal.getInstance(), HistorialJugadores.getInstance());
+    // indexadas por el código empaquetado en un long (ver CodigosPartida)
+    private final ConcurrentHashMap<Long, Partida> partidas;
+    private final CodigosPartida codigos;
+    // nombre -> códigos; listas inmutables que solo se sustituyen dentro de compute
+    private final ConcurrentHashMap<String, List<String>> codigosPorJugador;
+    private final AtomicLong partidasRecogidas = new AtomicLong();
+    private final AtomicLong partidasCanceladas = new AtomicLong();
+    private final AtomicLong jugadoresLiberados = new AtomicLong();
+    private final AtomicLong codigosLiberados = new AtomicLong();
+    private final ColaEmparejamiento emparejamiento;
+    private final ClasificacionGlobal clasificacion;
+    private final HistorialJugadores historial;
+    private ScheduledFuture<?> limpieza;
  
-    private GestorPartidas() {
+    private GestorPartidas(ClasificacionGlobal clasificacion, HistorialJugadores historial) {
+        this.clasificacion = clasificacion;
+        this.historial = historial;
         this.partidas = new ConcurrentHashMap<>();
+        this.codigos = new CodigosPartida();
         this.codigosPorJugador = new ConcurrentHashMap<>();
+        this.emparejamiento = new ColaEmparejamiento(this);
     }
     public static GestorPartidas getInstance() {
         return instancia;
     }
-    public synchronized String crearPartida() {
-        String codigo;
-        do {
-            codigo = generarCodigo();
-        } while (partidas.containsKey(codigo));
-        
-        partidas.put(codigo, new Partida(codigo));
-        return codigo;
-    }
-    private String generarCodigo() {
-        //código aleatorio para la partida
-        String caracteres = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-        StringBuilder codigo = new StringBuilder();
-        for (int i = 0; i < 6; i++) {
-            int index = (int)(Math.random() * caracteres.length());
-            codigo.append(caracteres.charAt(index));
+    public synchronized void iniciarLimpieza() {
+        if (limpieza == null) {
+            limpieza = Planificador.getInstance().programarPeriodica(this::recoger, PERIODO_LIMPIEZA_S, TimeUnit.SECONDS);
+        }
+    }
+    public synchronized void detenerLimpieza() {
+        if (limpieza != null) {
+            limpieza.cancel(false);
+            limpieza = null;
+        }
+    }
+    public ColaEmparejamiento getEmparejamiento() {
+        return emparejamiento;
+    }
+    // el putIfAbsent reserva el código; solo repite si el contador dio la vuelta
+    public String crearPartida() {
+        while (true) {
+            long clave = codigos.siguiente();
+            String codigo = CodigosPartida.aTexto(clave);
+            if (partidas.putIfAbsent(clave, new Partida(codigo, clasificacion, historial)) == null) {
+                return codigo;
+            }
         }
-        return codigo.toString();
     }
     
     public Partida obtenerPartida(String codigo) {
-        return partidas.get(codigo);
+        long clave = CodigosPartida.aClave(codigo);
+        return clave < 0 ? null : partidas.get(clave);
     }
     
-    public synchronized void registrarJugadorEnPartida(String nombreJugador, String codigoPartida) {
-        codigosPorJugador.computeIfAbsent(nombreJugador, k -> new ArrayList<>()).add(codigoPartida);
+    public void registrarJugadorEnPartida(String nombreJugador, String codigoPartida) {
+        codigosPorJugador.compute(nombreJugador, (nombre, codigos) -> {
+            if (codigos == null) {
+                return List.of(codigoPartida);
+            }
+            if (codigos.contains(codigoPartida)) {
+                return codigos;
+            }
+            List<String> nuevos = new ArrayList<>(codigos.size() + 1);
+            nuevos.addAll(codigos);
+            nuevos.add(codigoPartida);
+            return List.copyOf(nuevos);
+        });
     }
 
-    public synchronized void eliminarPartida(String codigo) {
-        Partida partida = partidas.remove(codigo);
+    public void eliminarPartida(String codigo) {
+        long clave = CodigosPartida.aClave(codigo);
+        Partida partida = clave < 0 ? null : partidas.remove(clave);
         if (partida != null) {
-            partida.getJugadores().forEach(jugador -> 
-                codigosPorJugador.getOrDefault(jugador.getNombre(), new ArrayList<>())
-                    .remove(codigo)
-            );
+            olvidarPartida(partida);
+        }
+    }
+    private void olvidarPartida(Partida partida) {
+        List<JugadorPartida> jugadores = partida.getJugadores();
+        for (JugadorPartida jugador : jugadores) {
+            quitarDelIndice(jugador.getNombre(), partida.getCodigo());
+        }
+        partidasRecogidas.incrementAndGet();
+        jugadoresLiberados.addAndGet(jugadores.size());
+    }
+    private void quitarDelIndice(String nombreJugador, String codigo) {
+        // devolver null borra la entrada del jugador en cuanto se queda sin partidas
+        codigosPorJugador.computeIfPresent(nombreJugador, (nombre, codigos) -> {
+            if (!codigos.contains(codigo)) {
+                return codigos;
+            }
+            codigosLiberados.incrementAndGet();
+            if (codigos.size() == 1) {
+                return null;
+            }
+            List<String> restantes = new ArrayList<>(codigos);
+            restantes.remove(codigo);
+            return List.copyOf(restantes);
+        });
+    }
+    
+    // quien salió antes de terminar ya no figura en la partida: su código solo se quita aquí
+    void recoger() {
+        try {
+            long ahora = System.currentTimeMillis();
+            long recogidasAntes = partidasRecogidas.get();
+            long codigosAntes = codigosLiberados.get();
+            for (Map.Entry<Long, Partida> entrada : partidas.entrySet()) {
+                Partida partida = entrada.getValue();
+                EstadoPartida estado = partida.getEstado();
+                boolean recoger;
+                if (estado.haFinalizado()) {
+                    recoger = ahora - partida.getUltimaActividad() >= RETENCION_MS;
+                } else {
+                    recoger = estado == EstadoPartida.ESPERANDO
+                            && partida.cancelarSiInactiva(ahora - ESPERA_MAXIMA_MS);
+                    if (recoger) {
+                        partidasCanceladas.incrementAndGet();
+                    }
+                }
+                if (recoger && partidas.remove(entrada.getKey(), partida)) {
+                    olvidarPartida(partida);
+                }
+            }
+            for (Map.Entry<String, List<String>> entrada : codigosPorJugador.entrySet()) {
+                for (String codigo : entrada.getValue()) {
+                    if (!existePartida(codigo)) {
+                        quitarDelIndice(entrada.getKey(), codigo);
+                    }
+                }
+            }
+            long recogidas = partidasRecogidas.get() - recogidasAntes;
+            long codigos = codigosLiberados.get() - codigosAntes;
+            if (recogidas > 0 || codigos > 0) {
+                Registro.info("Limpieza: " + recogidas + " partidas y " + codigos + " entradas del índice de jugadores recogidas; quedan "
+                        + partidas.size() + " partidas");
+            }
+        } catch (RuntimeException e) {
+            // una excepción cancelaría las pasadas siguientes
+            Registro.error("Error en la limpieza de partidas: " + e);
+        }
+    }
+    
+    public MetricasLimpieza getMetricas() {
+        return new MetricasLimpieza(partidas.size(), codigosPorJugador.size(), partidasRecogidas.get(),
+                partidasCanceladas.get(), jugadoresLiberados.get(), codigosLiberados.get());
+    }
+    
+    public static final class MetricasLimpieza {
+        private final int partidasRegistradas;
+        private final int jugadoresEnIndice;
+        private final long partidasRecogidas;
+        private final long partidasCanceladas;
+        private final long jugadoresLiberados;
+        private final long codigosLiberados;
+        
+        MetricasLimpieza(int partidasRegistradas, int jugadoresEnIndice, long partidasRecogidas,
+                         long partidasCanceladas, long jugadoresLiberados, long codigosLiberados) {
+            this.partidasRegistradas = partidasRegistradas;
+            this.jugadoresEnIndice = jugadoresEnIndice;
+            this.partidasRecogidas = partidasRecogidas;
+            this.partidasCanceladas = partidasCanceladas;
+            this.jugadoresLiberados = jugadoresLiberados;
+            this.codigosLiberados = codigosLiberados;
         }
+        
+        public int getPartidasRegistradas() { return partidasRegistradas; }
+        public int getJugadoresEnIndice() { return jugadoresEnIndice; }
+        public long getPartidasRecogidas() { return partidasRecogidas; }
+        public long getPartidasCanceladas() { return partidasCanceladas; }
+        public long getJugadoresLiberados() { return jugadoresLiberados; }
+        public long getCodigosLiberados() { return codigosLiberados; }
     }
     public List<Partida> obtenerPartidasActivas() {
         return new ArrayList<>(partidas.values());
     }
     public boolean existePartida(String codigo) {
-        return partidas.containsKey(codigo);
+        long clave = CodigosPartida.aClave(codigo);
+        return clave >= 0 && partidas.containsKey(clave);
     }
-    public synchronized void limpiarPartidasFinalizadas() {
-        partidas.values().removeIf(partida -> partida.getEstado() == EstadoPartida.FINALIZADA);
+    public void limpiarPartidasFinalizadas() {
+        for (Map.Entry<Long, Partida> entrada : partidas.entrySet()) {
+            Partida partida = entrada.getValue();
+            if (partida.getEstado() == EstadoPartida.FINALIZADA
+                    && partidas.remove(entrada.getKey(), partida)) {
+                olvidarPartida(partida);
+            }
+        }
     }
     public List<String> obtenerPartidasDeJugador(String nombreJugador) {
-        return codigosPorJugador.getOrDefault(nombreJugador, new ArrayList<>());
+        return codigosPorJugador.getOrDefault(nombreJugador, List.of());
     }
     public int getNumeroPartidasActivas() {
         return partidas.size();
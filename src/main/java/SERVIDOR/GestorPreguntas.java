@@ -1,52 +1,137 @@
 package SERVIDOR;
 
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Punto de acceso al banco de preguntas vigente.
+ *
+ * El banco es inmutable y se publica en un campo volatile: una recarga
+ * construye el banco nuevo aparte y lo sustituye de un solo paso, sin
+ * bloquear a nadie. Las partidas en curso conservan la lista que eligieron al
+ * empezar; solo las siguientes ven las preguntas nuevas.
+ *
+ * Si las preguntas vienen de un fichero ({@code -Dtrivial.preguntas}), un hilo
+ * propio lo vigila y recarga al cambiar. {@link #recargar()} permite además
+ * forzar la recarga desde fuera.
+ */
 public class GestorPreguntas {
       private static final GestorPreguntas instancia = new GestorPreguntas();
-    private final List<Pregunta> preguntas;
-    
+    private static final long ESPERA_ESCRITURA_MS = 500;
+    private volatile BancoPreguntas banco;
+
     private GestorPreguntas() {
-        this.preguntas = cargarPreguntas();
+        this.banco = new BancoPreguntas(cargarPreguntas());
+        String ruta = System.getProperty(CargadorPreguntas.PROPIEDAD_RUTA);
+        if (ruta != null) {
+            iniciarVigilancia(Paths.get(ruta).toAbsolutePath());
+        }
     }
     public static GestorPreguntas getInstance() {
         return instancia;
     }
     private List<Pregunta> cargarPreguntas() {
-        List<Pregunta> preguntasCargadas = new ArrayList<>();
         try {
-            String contenido = new String(Files.readAllBytes(Paths.get("src/main/resources/preguntas.json")));
-            JSONObject json = new JSONObject(contenido);
-            JSONArray preguntasJson = json.getJSONArray("preguntas");
-            
-            for (int i = 0; i < preguntasJson.length(); i++) {
-                JSONObject preguntaJson = preguntasJson.getJSONObject(i);
-                Pregunta pregunta = new Pregunta(
-                    preguntaJson.getInt("id"),
-                    preguntaJson.getString("pregunta"),
-                    preguntaJson.optString("codigo"),
-                    preguntaJson.getJSONArray("opciones").toList().stream()
-                        .map(Object::toString)
-                        .collect(Collectors.toList()),
-                    preguntaJson.getInt("respuesta_correcta")
-                );
-                preguntasCargadas.add(pregunta);
+            List<Pregunta> preguntasCargadas = CargadorPreguntas.cargar();
+            Registro.info("Cargadas " + preguntasCargadas.size() + " preguntas");
+            if (preguntasCargadas.size() < Partida.TOTAL_RONDAS) {
+                Registro.warn("Hacen falta al menos " + Partida.TOTAL_RONDAS
+                        + " preguntas para una partida; no se podrá empezar ninguna");
+            }
+            return preguntasCargadas;
+        } catch (IOException | RuntimeException e) {
+            Registro.error("Error al cargar las preguntas: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Vuelve a leer las preguntas y, si la carga es válida, sustituye el banco.
+     * Se ejecuta en el hilo que la llama; un fichero erróneo, o con menos
+     * preguntas de las que usa una partida, deja el banco anterior intacto.
+     */
+    public synchronized boolean recargar() {
+        List<Pregunta> preguntasCargadas;
+        try {
+            preguntasCargadas = CargadorPreguntas.cargar();
+        } catch (IOException | RuntimeException e) {
+            // JSON a medio escribir o snapshot truncado; no debe tumbar al hilo vigilante
+            Registro.error("Recarga de preguntas descartada: " + e.getMessage());
+            return false;
+        }
+        if (preguntasCargadas.size() < Partida.TOTAL_RONDAS) {
+            Registro.warn("Recarga de preguntas descartada: el banco nuevo tiene " + preguntasCargadas.size()
+                    + " preguntas y una partida usa " + Partida.TOTAL_RONDAS);
+            return false;
+        }
+        banco = new BancoPreguntas(preguntasCargadas);
+        Registro.info("Banco de preguntas recargado: " + preguntasCargadas.size() + " preguntas");
+        return true;
+    }
+
+    private void iniciarVigilancia(Path fichero) {
+        Path directorio = fichero.getParent();
+        WatchService vigilante;
+        try {
+            vigilante = FileSystems.getDefault().newWatchService();
+            directorio.register(vigilante,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            Registro.warn("No se puede vigilar " + fichero + ": " + e.getMessage());
+            return;
+        }
+        Thread hilo = new Thread(() -> vigilar(vigilante, fichero), "recarga-preguntas");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private void vigilar(WatchService vigilante, Path fichero) {
+        Path nombre = fichero.getFileName();
+        try {
+            while (true) {
+                WatchKey clave = vigilante.take();
+                boolean cambiado = afecta(clave, nombre);
+                // Un editor o una copia generan varios eventos seguidos: se
+                // espera a que dejen de llegar para no leer el fichero a medias
+                WatchKey siguiente;
+                while ((siguiente = vigilante.poll(ESPERA_ESCRITURA_MS, TimeUnit.MILLISECONDS)) != null) {
+                    cambiado |= afecta(siguiente, nombre);
+                }
+                if (cambiado) {
+                    recargar();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Registro.info("Vigilancia de " + fichero + " detenida");
+        }
+    }
+
+    private static boolean afecta(WatchKey clave, Path nombre) {
+        boolean afecta = false;
+        for (WatchEvent<?> evento : clave.pollEvents()) {
+            if (nombre.equals(evento.context())) {
+                afecta = true;
             }
-        } catch (IOException | JSONException e) {
-            System.err.println("Error al cargar las preguntas: " + e.getMessage());
         }
-        return preguntasCargadas;
+        clave.reset();
+        return afecta;
     }
+
+    public BancoPreguntas getBanco() {
+        return banco;
+    }
+
+    /** Vista de solo lectura del banco; ya no copia la lista en cada llamada. */
     public List<Pregunta> obtenerPreguntas() {
-        return new ArrayList<>(preguntas);
+        return banco.asList();
     }
 }
@@ -0,0 +1,341 @@
+package SERVIDOR;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estadísticas de jugadores sobre todas las partidas terminadas, persistidas
+ * en disco.
+ *
+ * Al terminar una partida sus resultados solo se encolan; un hilo propio los
+ * escribe por lotes al final de {@code historial.log} y actualiza el índice en
+ * memoria, de modo que ningún hilo de juego espera al disco. Cada cierto
+ * número de resultados (o de tiempo) el índice se vuelca compactado a
+ * {@code historial.idx} junto con la posición del log que cubre; al arrancar
+ * se lee el índice y solo se reprocesa el log a partir de esa posición.
+ *
+ * El directorio se elige con {@code -Dtrivial.datos=<ruta>} ("datos" por defecto).
+ */
+public class HistorialJugadores {
+    private static final HistorialJugadores instancia = new HistorialJugadores();
+
+    private static final int MAGIC_INDICE = 0x54524849; // "TRHI"
+    private static final int VERSION_INDICE = 1;
+    private static final int CAPACIDAD_COLA = 16384;
+    private static final int MAX_LOTE = 512;
+    private static final int COMPACTAR_CADA = 10_000;
+    private static final long INTERVALO_COMPACTACION_MS = 60_000;
+
+    private final Path ficheroLog;
+    private final Path ficheroIndice;
+    private final Map<String, Estadisticas> indice;
+    private final BlockingQueue<Resultado> cola;
+    private final AtomicLong descartados;
+    private FileChannel log;
+
+    private HistorialJugadores() {
+        Path directorio = Paths.get(System.getProperty("trivial.datos", "datos"));
+        this.ficheroLog = directorio.resolve("historial.log");
+        this.ficheroIndice = directorio.resolve("historial.idx");
+        this.indice = new ConcurrentHashMap<>();
+        this.cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA);
+        this.descartados = new AtomicLong();
+        try {
+            Files.createDirectories(directorio);
+            long cubierto = leerIndice();
+            this.log = FileChannel.open(ficheroLog, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long fin = reproducirLog(cubierto);
+            if (fin < log.size()) {
+                // descarta un registro a medio escribir si el servidor se cortó
+                log.truncate(fin);
+            }
+            log.position(fin);
+            Registro.info("Historial cargado: " + indice.size() + " jugadores");
+        } catch (IOException e) {
+            Registro.error("Historial no disponible, no se guardarán resultados: " + e.getMessage());
+            this.log = null;
+        }
+        Thread escritor = new Thread(this::escribir, "historial");
+        escritor.setDaemon(true);
+        escritor.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::vaciar, "historial-cierre"));
+    }
+
+    public static HistorialJugadores getInstance() {
+        return instancia;
+    }
+
+    /** Acumulado de un jugador. Inmutable: cada resultado crea uno nuevo. */
+    public static final class Estadisticas {
+        private final String nombre;
+        private final int partidasJugadas;
+        private final long puntuacionTotal;
+        private final int mejorPuntuacion;
+
+        Estadisticas(String nombre, int partidasJugadas, long puntuacionTotal, int mejorPuntuacion) {
+            this.nombre = nombre;
+            this.partidasJugadas = partidasJugadas;
+            this.puntuacionTotal = puntuacionTotal;
+            this.mejorPuntuacion = mejorPuntuacion;
+        }
+
+        Estadisticas con(int puntos) {
+            return new Estadisticas(nombre, partidasJugadas + 1, puntuacionTotal + puntos,
+                    Math.max(mejorPuntuacion, puntos));
+        }
+
+        public String getNombre() { return nombre; }
+        public int getPartidasJugadas() { return partidasJugadas; }
+        public long getPuntuacionTotal() { return puntuacionTotal; }
+        public int getMejorPuntuacion() { return mejorPuntuacion; }
+        public double getPuntuacionMedia() { return puntuacionTotal / (double) partidasJugadas; }
+    }
+
+    private static final class Resultado {
+        final String codigoPartida;
+        final String nombre;
+        final int puntos;
+        final long instante;
+
+        Resultado(String codigoPartida, String nombre, int puntos, long instante) {
+            this.codigoPartida = codigoPartida;
+            this.nombre = nombre;
+            this.puntos = puntos;
+            this.instante = instante;
+        }
+    }
+
+    private static String clave(String nombre) {
+        return nombre.toLowerCase(Locale.ROOT);
+    }
+
+    /** Encola los resultados de una partida terminada; nunca bloquea. */
+    public void registrarPartida(String codigoPartida, List<JugadorPartida> jugadores) {
+        long ahora = System.currentTimeMillis();
+        for (JugadorPartida jugador : jugadores) {
+            if (!cola.offer(new Resultado(codigoPartida, jugador.getNombre(), jugador.getPuntuacionTotal(), ahora))) {
+                descartados.incrementAndGet();
+            }
+        }
+    }
+
+    /** Estadísticas de por vida (sin distinguir mayúsculas), o null si nunca terminó una partida. */
+    public Estadisticas estadisticas(String nombre) {
+        return indice.get(clave(nombre));
+    }
+
+    public long getDescartados() {
+        return descartados.get();
+    }
+
+    private void acumular(String nombre, int puntos) {
+        indice.merge(clave(nombre), new Estadisticas(nombre, 1, puntos, puntos),
+                (previas, nuevas) -> previas.con(puntos));
+    }
+
+    private void escribir() {
+        List<Resultado> lote = new ArrayList<>(MAX_LOTE);
+        int sinCompactar = 0;
+        long ultimaCompactacion = System.currentTimeMillis();
+        long descartadosAvisados = 0;
+        while (true) {
+            try {
+                Resultado primero = cola.poll(INTERVALO_COMPACTACION_MS, TimeUnit.MILLISECONDS);
+                if (primero != null) {
+                    lote.add(primero);
+                    cola.drainTo(lote, MAX_LOTE - 1);
+                    sinCompactar += guardar(lote);
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            long totalDescartados = descartados.get();
+            if (totalDescartados > descartadosAvisados) {
+                Registro.warn("Historial: " + (totalDescartados - descartadosAvisados)
+                        + " resultados descartados por cola llena");
+                descartadosAvisados = totalDescartados;
+            }
+            long ahora = System.currentTimeMillis();
+            if (sinCompactar >= COMPACTAR_CADA
+                    || (sinCompactar > 0 && ahora - ultimaCompactacion >= INTERVALO_COMPACTACION_MS)) {
+                compactar();
+                sinCompactar = 0;
+                ultimaCompactacion = ahora;
+            }
+        }
+    }
+
+    /** Añade el lote al log con una sola escritura y lo refleja en el índice. */
+    private synchronized int guardar(List<Resultado> lote) {
+        if (log != null) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(lote.size() * 32);
+                DataOutputStream salida = new DataOutputStream(bytes);
+                for (Resultado resultado : lote) {
+                    escribirCadena(salida, resultado.codigoPartida);
+                    escribirCadena(salida, resultado.nombre);
+                    salida.writeInt(resultado.puntos);
+                    salida.writeLong(resultado.instante);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                log.force(false);
+            } catch (IOException e) {
+                Registro.error("Error escribiendo el historial: " + e.getMessage());
+            }
+        }
+        for (Resultado resultado : lote) {
+            acumular(resultado.nombre, resultado.puntos);
+        }
+        return lote.size();
+    }
+
+    private synchronized void compactar() {
+        if (log == null) {
+            return;
+        }
+        Path temporal = ficheroIndice.resolveSibling(ficheroIndice.getFileName() + ".tmp");
+        try {
+            long cubierto = log.position();
+            try (DataOutputStream salida = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+                salida.writeInt(MAGIC_INDICE);
+                salida.writeInt(VERSION_INDICE);
+                salida.writeLong(cubierto);
+                List<Estadisticas> todas = new ArrayList<>(indice.values());
+                salida.writeInt(todas.size());
+                for (Estadisticas estadisticas : todas) {
+                    salida.writeUTF(estadisticas.nombre);
+                    salida.writeInt(estadisticas.partidasJugadas);
+                    salida.writeLong(estadisticas.puntuacionTotal);
+                    salida.writeInt(estadisticas.mejorPuntuacion);
+                }
+            }
+            Files.move(temporal, ficheroIndice, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Registro.debug(() -> "Índice del historial compactado hasta el byte " + cubierto);
+        } catch (IOException e) {
+            Registro.error("Error compactando el historial: " + e.getMessage());
+        }
+    }
+
+    /** Carga el índice compactado y devuelve hasta qué posición del log cubre. */
+    private long leerIndice() throws IOException {
+        if (!Files.exists(ficheroIndice)) {
+            return 0;
+        }
+        try (DataInputStream entrada = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(ficheroIndice)))) {
+            if (entrada.readInt() != MAGIC_INDICE || entrada.readInt() != VERSION_INDICE) {
+                Registro.warn("Índice del historial no reconocido, se reconstruye desde el log");
+                return 0;
+            }
+            long cubierto = entrada.readLong();
+            int total = entrada.readInt();
+            Map<String, Estadisticas> leidas = new HashMap<>(total * 2);
+            for (int i = 0; i < total; i++) {
+                String nombre = entrada.readUTF();
+                Estadisticas estadisticas = new Estadisticas(nombre, entrada.readInt(),
+                        entrada.readLong(), entrada.readInt());
+                leidas.put(clave(nombre), estadisticas);
+            }
+            indice.putAll(leidas);
+            return cubierto;
+        } catch (EOFException e) {
+            Registro.warn("Índice del historial incompleto, se reconstruye desde el log");
+            indice.clear();
+            return 0;
+        }
+    }
+
+    /**
+     * Registro del log: codigo, nombre (longitud en 2 bytes + UTF-8), puntos
+     * (int) e instante (long).
+     */
+    private static void escribirCadena(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            // igual que writeUTF en el índice: mejor fallar que cortar el registro
+            throw new UTFDataFormatException("Cadena de " + bytes.length + " bytes");
+        }
+        salida.writeShort(bytes.length);
+        salida.write(bytes);
+    }
+
+    private static String leerCadena(ByteBuffer buffer) {
+        if (buffer.remaining() < 2) {
+            return null;
+        }
+        int longitud = buffer.getShort() & 0xFFFF;
+        if (buffer.remaining() < longitud) {
+            return null;
+        }
+        byte[] bytes = new byte[longitud];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Aplica los registros del log posteriores al índice y devuelve dónde acaba el último completo. */
+    private long reproducirLog(long desde) throws IOException {
+        long tamano = log.size();
+        if (desde > tamano) {
+            Registro.warn("El índice del historial no corresponde al log, se reconstruye");
+            indice.clear();
+            desde = 0;
+        }
+        if (desde == tamano) {
+            return desde;
+        }
+        ByteBuffer buffer = log.map(FileChannel.MapMode.READ_ONLY, desde, tamano - desde);
+        int completo = 0;
+        while (buffer.hasRemaining()) {
+            String codigo = leerCadena(buffer);
+            String nombre = codigo == null ? null : leerCadena(buffer);
+            if (nombre == null || buffer.remaining() < Integer.BYTES + Long.BYTES) {
+                break;
+            }
+            int puntos = buffer.getInt();
+            buffer.getLong();
+            acumular(nombre, puntos);
+            completo = buffer.position();
+        }
+        return desde + completo;
+    }
+
+    /** Al apagar el servidor escribe lo que quede en la cola y compacta. */
+    private void vaciar() {
+        List<Resultado> lote = new ArrayList<>();
+        cola.drainTo(lote);
+        if (!lote.isEmpty()) {
+            guardar(lote);
+        }
+        compactar();
+    }
+}
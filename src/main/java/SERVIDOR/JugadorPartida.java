@@ -1,35 +1,50 @@
 package SERVIDOR;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class JugadorPartida {
+    // en caracteres; así el nombre cabe siempre en los campos u16 del
+    // historial y del protocolo binario
+    static final int MAX_NOMBRE = 32;
     private final String nombre;
-    private int puntuacionTotal;
-    private boolean haRespondido;
-    private long tiempoRespuesta;
-    private String respuestaActual;
+    private final AtomicInteger puntuacionTotal;
+    // última ronda respondida: el CAS sobre este valor decide si una respuesta cuenta
+    private final AtomicInteger rondaRespondida;
+    private volatile long tiempoRespuesta;
+    // número dentro de su partida; lo asigna Partida al unirse
+    private volatile int numero = -1;
     
     public JugadorPartida(String nombre) {
-        this.nombre = nombre;
-        this.puntuacionTotal = 0;
-        this.haRespondido = false;
+        this.nombre = limitar(nombre);
+        this.puntuacionTotal = new AtomicInteger(0);
+        this.rondaRespondida = new AtomicInteger(0);
     }
-    public synchronized void responder(long tiempo) {
-        if (!haRespondido) {
-            this.tiempoRespuesta = tiempo;
-            this.haRespondido = true;
+    private static String limitar(String nombre) {
+        if (nombre.codePointCount(0, nombre.length()) <= MAX_NOMBRE) {
+            return nombre;
         }
+        return nombre.substring(0, nombre.offsetByCodePoints(0, MAX_NOMBRE));
     }
-    public synchronized void sumarPuntos(int puntos) {
-        this.puntuacionTotal += puntos;
+    /** Marca la ronda como respondida; devuelve false si ya lo estaba. */
+    public boolean responder(int ronda, long tiempo) {
+        int anterior;
+        do {
+            anterior = rondaRespondida.get();
+            if (anterior >= ronda) {
+                return false;
+            }
+        } while (!rondaRespondida.compareAndSet(anterior, ronda));
+        this.tiempoRespuesta = tiempo;
+        return true;
     }
-    
-    public void reiniciarRespuesta() {
-        this.haRespondido = false;
-        this.tiempoRespuesta = 0;
-        this.respuestaActual = null;
+    public void sumarPuntos(int puntos) {
+        puntuacionTotal.addAndGet(puntos);
     }
+    
     public String getNombre() { return nombre; }
-    public int getPuntuacionTotal() { return puntuacionTotal; }
-    public boolean haRespondido() { return haRespondido; }
+    public int getPuntuacionTotal() { return puntuacionTotal.get(); }
+    public boolean haRespondido(int ronda) { return rondaRespondida.get() >= ronda; }
     public long getTiempoRespuesta() { return tiempoRespuesta; }
-    public String getRespuestaActual() { return respuestaActual; }
-}
\ No newline at end of file
+    public int getNumero() { return numero; }
+    void setNumero(int numero) { this.numero = numero; }
+}
@@ -0,0 +1,73 @@
+package SERVIDOR;
+
+/**
+ * Lo que pide el cliente, ya decodificado. Un cliente de texto manda líneas
+ * cuyo sentido depende del menú en el que esté; los del protocolo binario y
+ * los de la pasarela WebSocket mandan operaciones con tipo, que
+ * {@link ControladorCliente} atiende según el estado de la sesión y no según
+ * el menú.
+ */
+final class Orden {
+
+    enum Tipo { LINEA, CREAR, UNIRSE, PARTIDA_RAPIDA, COMENZAR, ESPERAR, RESPONDER, SALIR }
+
+    private final Tipo tipo;
+    // la línea recibida o el nombre del jugador
+    private final String texto;
+    private final String codigo;
+    // opción elegida, 0 para la A
+    private final int opcion;
+
+    private Orden(Tipo tipo, String texto, String codigo, int opcion) {
+        this.tipo = tipo;
+        this.texto = texto;
+        this.codigo = codigo;
+        this.opcion = opcion;
+    }
+
+    static Orden linea(String linea) {
+        return new Orden(Tipo.LINEA, linea, null, -1);
+    }
+
+    static Orden crear(String nombre) {
+        return new Orden(Tipo.CREAR, nombre, null, -1);
+    }
+
+    static Orden unirse(String nombre, String codigo) {
+        return new Orden(Tipo.UNIRSE, nombre, codigo, -1);
+    }
+
+    static Orden partidaRapida(String nombre) {
+        return new Orden(Tipo.PARTIDA_RAPIDA, nombre, null, -1);
+    }
+
+    static Orden responder(int opcion) {
+        return new Orden(Tipo.RESPONDER, null, null, opcion);
+    }
+
+    /** Órdenes sin datos: comenzar, esperar y salir. */
+    static Orden de(Tipo tipo) {
+        return new Orden(tipo, null, null, -1);
+    }
+
+    Tipo getTipo() {
+        return tipo;
+    }
+
+    String getLinea() {
+        return texto;
+    }
+
+    String getNombre() {
+        return texto;
+    }
+
+    String getCodigo() {
+        return codigo;
+    }
+
+    /** La opción como la escribiría un cliente de texto: "A", "B"... */
+    String getRespuesta() {
+        return String.valueOf((char) ('A' + opcion));
+    }
+}
@@ -0,0 +1,33 @@
+package SERVIDOR;
+
+import java.util.List;
+
+/**
+ * Eventos que una {@link Partida} envía a las sesiones suscritas. Se invocan
+ * desde el hilo que provoca el cambio (el planificador o la sesión que
+ * responde), nunca con el cerrojo de la partida tomado.
+ */
+public interface OyentePartida {
+
+    default void jugadorUnido(JugadorPartida jugador, int totalJugadores) {
+    }
+
+    default void jugadorSalio(JugadorPartida jugador, int totalJugadores) {
+    }
+
+    default void partidaIniciada() {
+    }
+
+    void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos);
+
+    void respuestaRegistrada(JugadorPartida jugador, int jugadoresSinResponder);
+
+    /** La misma {@link Clasificacion} llega a todas las sesiones de la partida. */
+    void rondaFinalizada(Clasificacion clasificacion, List<JugadorPartida> sinResponder);
+
+    void partidaFinalizada(Clasificacion clasificacion);
+
+    /** La partida se canceló sin llegar a empezar. */
+    default void partidaCancelada() {
+    }
+}
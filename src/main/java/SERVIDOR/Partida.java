@@ -3,214 +3,264 @@ package SERVIDOR;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.BrokenBarrierException;
-import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Estado de una partida. Las rondas las avanza el {@link Planificador} y los
+ * cambios llegan a las sesiones por {@link OyentePartida}.
+ */
 public class Partida {
     private final String codigo;
     private final List<JugadorPartida> jugadores;
-    private EstadoPartida estado;
-    private CyclicBarrier barreraRonda;
-    private CyclicBarrier barreraPregunta;
-    private CyclicBarrier barreraSiguienteRonda;
-    private final AtomicInteger rondaActual;
-    private int tiempoRonda;
-    private final AtomicInteger jugadoresRespondidos;
+    private final List<OyentePartida> oyentes;
+    private volatile EstadoPartida estado;
+    // datos de la ronda en juego; se sustituye entero al empezar la siguiente
+    private volatile Ronda ronda;
+    // jugadores ordenados por puntuación; cada cambio publica una lista nueva
+    private final AtomicReference<List<JugadorPartida>> ranking;
+    // de un contador común, para que un código reutilizado no repita versiones
+    private final AtomicLong versionRanking;
+    private static final AtomicLong VERSIONES_RANKING = new AtomicLong();
     private List<Pregunta> preguntasPartida;
-    private Pregunta preguntaActual;
-    private static final int MAX_JUGADORES = 4;
-    private static final int MIN_JUGADORES = 2;
-    private static final int TOTAL_RONDAS = 5;
+    static final int MAX_JUGADORES = 4;
+    static final int MIN_JUGADORES = 2;
+    static final int TOTAL_RONDAS = 5;
     private static final int TIEMPO_INICIAL = 100;
     private static final int REDUCCION_TIEMPO = 20;
+    private static final int PAUSA_ENTRE_RONDAS = 3;
     private JugadorPartida creador;
-    private boolean partidaIniciada;
-    private final Object lockRonda = new Object();
-    private volatile boolean rondaEnProceso = false;
-    private final Object lockRespuestas = new Object();
-    private int jugadoresAcertantes = 0;
+    private ScheduledFuture<?> plazoRonda;
+    // último cambio de jugadores o de estado, para GestorPartidas
+    private volatile long ultimaActividad;
+    private final ClasificacionGlobal clasificacion;
+    private final HistorialJugadores historial;
+    
+    // una respuesta tardía toca los contadores de su ronda, nunca los de la siguiente
+    private static final class Ronda {
+        final int numero;
+        final Pregunta pregunta;
+        final int segundos;
+        final long inicio;
+        final AtomicInteger respondidos = new AtomicInteger();
+        final AtomicInteger acertantes = new AtomicInteger();
+        // se completa una sola vez: con la última respuesta o al vencer el plazo
+        final CompletableFuture<Void> fin = new CompletableFuture<>();
+        volatile boolean abierta = true;
+        
+        Ronda(int numero, Pregunta pregunta, int segundos) {
+            this.numero = numero;
+            this.pregunta = pregunta;
+            this.segundos = segundos;
+            this.inicio = System.currentTimeMillis();
+        }
+    }
     
     public Partida(String codigo) {
+        this(codigo, ClasificacionGlobal.getInstance(), HistorialJugadores.getInstance());
+    }
+    
+    public Partida(String codigo, ClasificacionGlobal clasificacion, HistorialJugadores historial) {
         this.codigo = codigo;
+        this.clasificacion = clasificacion;
+        this.historial = historial;
         this.jugadores = Collections.synchronizedList(new ArrayList<>());
+        this.oyentes = new CopyOnWriteArrayList<>();
         this.estado = EstadoPartida.ESPERANDO;
-        this.rondaActual = new AtomicInteger(0);
-        this.jugadoresRespondidos = new AtomicInteger(0);
-        this.preguntasPartida = new ArrayList<>();
+        this.preguntasPartida = List.of();
+        this.ranking = new AtomicReference<>(List.of());
+        this.versionRanking = new AtomicLong(VERSIONES_RANKING.incrementAndGet());
+        this.ultimaActividad = System.currentTimeMillis();
     }
     
-    public synchronized boolean agregarJugador(JugadorPartida jugador, boolean esCreador) {
-        if (jugadores.size() >= MAX_JUGADORES || estado != EstadoPartida.ESPERANDO) {
-            return false;
-        }
-        jugadores.add(jugador);
-        
-        if (esCreador) {
-            this.creador = jugador;
+    public void agregarOyente(OyentePartida oyente) {
+        oyentes.add(oyente);
+    }
+    
+    public void eliminarOyente(OyentePartida oyente) {
+        oyentes.remove(oyente);
+    }
+    
+    public boolean agregarJugador(JugadorPartida jugador, boolean esCreador) {
+        int total;
+        boolean iniciada;
+        synchronized (this) {
+            if (jugadores.size() >= MAX_JUGADORES || estado != EstadoPartida.ESPERANDO) {
+                return false;
+            }
+            jugador.setNumero(numeroLibre());
+            jugadores.add(jugador);
+            ultimaActividad = System.currentTimeMillis();
+            ranking.updateAndGet(lista -> anadirAlFinal(lista, jugador));
+            rankingCambiado();
+            clasificacion.jugadorUnido(this, jugador);
+            
+            if (esCreador) {
+                this.creador = jugador;
+            }
+            total = jugadores.size();
+            iniciada = total == MAX_JUGADORES && iniciar();
         }
-        
-        if (jugadores.size() == MAX_JUGADORES) {
-            iniciarPartida();
+        if (iniciada) {
+            notificarInicio();
+        } else {
+            for (OyentePartida oyente : oyentes) {
+                oyente.jugadorUnido(jugador, total);
+            }
         }
         return true;
     }
     
+    private int numeroLibre() {
+        long ocupados = 0;
+        for (JugadorPartida otro : jugadores) {
+            ocupados |= 1L << otro.getNumero();
+        }
+        return Long.numberOfTrailingZeros(~ocupados);
+    }
+    
     public synchronized boolean puedeComenzar() {
-        return jugadores.size() >= MIN_JUGADORES && !partidaIniciada && estado == EstadoPartida.ESPERANDO;
+        return jugadores.size() >= MIN_JUGADORES && estado == EstadoPartida.ESPERANDO;
     }
     
-    public synchronized void comenzarPartida() {
-        synchronized(lockRonda) {
-            System.out.println("DEBUG - Comenzando partida");
-            seleccionarPreguntas(GestorPreguntas.getInstance().obtenerPreguntas());
-            rondaActual.set(1);
-            estado = EstadoPartida.EN_CURSO;
-            
-            int numJugadores = jugadores.size();
-            System.out.println("DEBUG - Inicializando barreras para " + numJugadores + " jugadores");
-            barreraPregunta = new CyclicBarrier(numJugadores);
-            barreraRonda = new CyclicBarrier(numJugadores);
-            barreraSiguienteRonda = new CyclicBarrier(numJugadores);
+    public boolean comenzarPartida() {
+        synchronized (this) {
+            if (!iniciar()) {
+                return false;
+            }
         }
+        notificarInicio();
+        return true;
     }
     
-    void reiniciarBarreras() {
-        System.out.println("DEBUG - Reiniciando barreras para " + jugadores.size() + " jugadores");
-        int numJugadores = jugadores.size();
-        barreraPregunta = new CyclicBarrier(numJugadores);
-        barreraRonda = new CyclicBarrier(numJugadores);
-        barreraSiguienteRonda = new CyclicBarrier(numJugadores);
+    private boolean iniciar() {
+        if (!puedeComenzar()) {
+            return false;
+        }
+        Registro.debug(() -> "Comenzando partida " + codigo + " con " + jugadores.size() + " jugadores");
+        seleccionarPreguntas(GestorPreguntas.getInstance().getBanco());
+        estado = EstadoPartida.INICIANDO;
+        return true;
     }
     
-    public boolean esCreador(JugadorPartida jugador) {
-        return creador != null && creador.equals(jugador);
+    private void notificarInicio() {
+        for (OyentePartida oyente : oyentes) {
+            oyente.partidaIniciada();
+        }
+        Planificador.getInstance().ejecutar(() -> iniciarRonda(1));
     }
     
-    public void iniciarPartida() {
-        if (!partidaIniciada && jugadores.size() >= MIN_JUGADORES) {
-            partidaIniciada = true;
-            rondaActual.set(0);
-            seleccionarPreguntas(GestorPreguntas.getInstance().obtenerPreguntas());
-            this.estado = EstadoPartida.EN_CURSO;
-            iniciarNuevaRonda();
-        }
+    public boolean esCreador(JugadorPartida jugador) {
+        return creador != null && creador.equals(jugador);
     }
     
-    private void seleccionarPreguntas(List<Pregunta> todasLasPreguntas) {
-        if (todasLasPreguntas == null || todasLasPreguntas.isEmpty()) {
+    private void seleccionarPreguntas(BancoPreguntas banco) {
+        if (banco.size() == 0) {
             throw new IllegalStateException("No hay preguntas disponibles");
         }
-        Random random = new Random();
-        int totalPreguntas = todasLasPreguntas.size();
-        int maxIndiceInicial = totalPreguntas - TOTAL_RONDAS;
-        if (maxIndiceInicial < 0) {
-            throw new IllegalStateException("No hay suficientes preguntas para una partida");
-        }
-        
-        int indiceInicial = random.nextInt(maxIndiceInicial + 1);
-        preguntasPartida = new ArrayList<>();
-        System.out.println("DEBUG - Seleccionando " + TOTAL_RONDAS + " preguntas consecutivas desde el índice " + indiceInicial);
-        
-        for (int i = 0; i < TOTAL_RONDAS; i++) {
-            Pregunta pregunta = todasLasPreguntas.get(indiceInicial + i);
-            preguntasPartida.add(pregunta);
-            System.out.println("Ronda " + (i + 1) + " de " + TOTAL_RONDAS + ": " + pregunta.getEnunciado());
-        }
-    }
-    
-    private synchronized void iniciarNuevaRonda() {
-        synchronized (lockRonda) {
-            int nuevaRonda = rondaActual.incrementAndGet();
-            System.out.println("DEBUG - Iniciando ronda " + nuevaRonda + " con pregunta: " + preguntaActual.getEnunciado());
-            tiempoRonda = TIEMPO_INICIAL - ((nuevaRonda - 1) * REDUCCION_TIEMPO);
-            preguntaActual = preguntasPartida.get(nuevaRonda - 1);
-            jugadoresRespondidos.set(0);
-            for (JugadorPartida jugador : jugadores) {
-                jugador.reiniciarRespuesta();
+        preguntasPartida = banco.seleccionar(TOTAL_RONDAS);
+        if (Registro.activo(Registro.Nivel.DEBUG)) {
+            for (int i = 0; i < preguntasPartida.size(); i++) {
+                int numero = i + 1;
+                Pregunta pregunta = preguntasPartida.get(i);
+                Registro.debug(() -> "Ronda " + numero + " de " + TOTAL_RONDAS + ": " + pregunta.getEnunciado());
             }
         }
     }
     
-    public synchronized void registrarRespuesta(JugadorPartida jugador, String respuesta) {
-        synchronized(lockRespuestas) {
-            if (jugador == null || jugador.haRespondido()) {
+    private void iniciarRonda(int numero) {
+        Ronda nueva;
+        synchronized (this) {
+            if (estado.haFinalizado()) {
                 return;
             }
-
-            System.out.println("DEBUG - Registrando respuesta '" + respuesta + "' del jugador " + jugador.getNombre() + " en ronda " + rondaActual.get());
-            jugador.responder(System.currentTimeMillis());
-         
-            Pregunta preguntaActual = getPreguntaActual();
-            if (preguntaActual != null && respuesta != null && 
-                preguntaActual.esRespuestaCorrecta(respuesta.toUpperCase())) {
-                
-                int puntos = calcularPuntos(++jugadoresAcertantes);
-                jugador.sumarPuntos(puntos);
-                
-                System.out.println("DEBUG - Jugador " + jugador.getNombre() + " acertó y recibe " + puntos + " puntos");
-            }
+            Pregunta pregunta = preguntasPartida.get(numero - 1);
+            nueva = new Ronda(numero, pregunta, TIEMPO_INICIAL - ((numero - 1) * REDUCCION_TIEMPO));
+            Registro.debug(() -> "Iniciando ronda " + numero + " con pregunta: " + pregunta.getEnunciado());
+            nueva.fin.thenRun(() -> cerrarRonda(nueva));
+            ronda = nueva;
+            estado = EstadoPartida.EN_CURSO;
+            ultimaActividad = nueva.inicio;
+            plazoRonda = Planificador.getInstance().programar(() -> nueva.fin.complete(null), nueva.segundos, TimeUnit.SECONDS);
+        }
+        for (OyentePartida oyente : oyentes) {
+            oyente.rondaIniciada(numero, TOTAL_RONDAS, nueva.pregunta, nueva.segundos);
         }
     }
     
-    public void marcarRespuestasPendientesPorTimeout() {
-        jugadores.stream()
-                .filter(j -> !j.haRespondido())
-                .forEach(j -> registrarRespuesta(j, null));
-    }
-    
-    public boolean debeAvanzarRonda() {
-        return todosHanRespondido() || tiempoAgotado();
+    // sin cerrojos: el CAS de JugadorPartida.responder decide si la respuesta cuenta
+    public boolean registrarRespuesta(JugadorPartida jugador, String respuesta) {
+        long instante = System.currentTimeMillis();
+        Ronda actual = ronda;
+        if (jugador == null || actual == null || !actual.abierta
+                || !jugador.responder(actual.numero, instante)) {
+            return false;
+        }
+        if (respuesta != null && actual.pregunta.esRespuestaCorrecta(respuesta.toUpperCase())) {
+            int puntos = calcularPuntos(actual.acertantes.incrementAndGet());
+            jugador.sumarPuntos(puntos);
+            ranking.updateAndGet(lista -> subirEnRanking(lista, jugador));
+            rankingCambiado();
+            clasificacion.puntosActualizados(jugador);
+            if (Registro.activo(Registro.Nivel.DEBUG)) {
+                Registro.debug(() -> "Jugador " + jugador.getNombre() + " acertó y recibe " + puntos + " puntos");
+            }
+        }
+        int sinResponder = jugadores.size() - actual.respondidos.incrementAndGet();
+        for (OyentePartida oyente : oyentes) {
+            oyente.respuestaRegistrada(jugador, sinResponder);
+        }
+        comprobarFinRonda(actual);
+        return true;
     }
     
-    private boolean tiempoAgotado() {
-        return System.currentTimeMillis() >= tiempoInicioRonda + (tiempoRonda * 1000);
+    private List<JugadorPartida> marcarRespuestasPendientesPorTimeout(Ronda actual) {
+        List<JugadorPartida> pendientes = new ArrayList<>();
+        long ahora = System.currentTimeMillis();
+        for (JugadorPartida jugador : getJugadores()) {
+            if (jugador.responder(actual.numero, ahora)) {
+                pendientes.add(jugador);
+            }
+        }
+        return pendientes;
     }
     
-    public void esperarSiguienteRonda() throws InterruptedException, BrokenBarrierException {
-        try {
-            if (barreraSiguienteRonda != null && !partidaFinalizada()) {
-                System.out.println("DEBUG - Jugadores esperando en barrera: " + barreraSiguienteRonda.getNumberWaiting() + " de " + barreraSiguienteRonda.getParties());
-                barreraSiguienteRonda.await();
-            }
-        } catch (BrokenBarrierException | InterruptedException e) {
-            System.err.println("DEBUG - Error en barrera: " + e.getMessage());
-            if (!partidaFinalizada()) {
-                throw e;
-            }
+    private void comprobarFinRonda(Ronda actual) {
+        if (actual.respondidos.get() >= jugadores.size()) {
+            actual.fin.complete(null);
         }
     }
     
-    public synchronized void prepararSiguienteRonda() {
-        synchronized (lockRonda) {
-            if (rondaEnProceso) {
-                System.out.println("DEBUG - Ronda ya en proceso, esperando...");
+    private void cerrarRonda(Ronda actual) {
+        List<JugadorPartida> sinResponder;
+        Clasificacion clasificacion;
+        boolean ultimaRonda;
+        synchronized (this) {
+            if (estado != EstadoPartida.EN_CURSO || ronda != actual) {
                 return;
             }
-            
-            rondaEnProceso = true;
-            int rondaAnterior = rondaActual.get();
-            System.out.println("DEBUG - Preparando ronda. Actual: " + rondaAnterior + " -> Nueva: " + (rondaAnterior + 1));
-
-            if (rondaAnterior < TOTAL_RONDAS) {
-                int nuevaRonda = rondaActual.incrementAndGet();
-                preguntaActual = preguntasPartida.get(nuevaRonda - 1);
-                System.out.println("DEBUG - Iniciando ronda " + nuevaRonda + " con pregunta: " + preguntaActual.getEnunciado());
-
-                // Reiniciamos contadores
-                jugadoresAcertantes = 0;
-                for (JugadorPartida jugador : jugadores) {
-                    jugador.reiniciarRespuesta();
-                }
-                if (barreraPregunta == null || barreraPregunta.isBroken()) {
-                    reiniciarBarreras();
-                }
-            } else {
-                finalizarPartida();
+            actual.abierta = false;
+            estado = EstadoPartida.ENTRE_RONDAS;
+            if (plazoRonda != null) {
+                plazoRonda.cancel(false);
             }
-            rondaEnProceso = false;
+            sinResponder = marcarRespuestasPendientesPorTimeout(actual);
+            ultimaRonda = actual.numero >= TOTAL_RONDAS;
+            clasificacion = Clasificacion.deRonda(actual.numero, obtenerRanking(), !ultimaRonda);
+            Registro.debug(() -> "Ronda " + actual.numero + " cerrada en partida " + codigo);
+        }
+        for (OyentePartida oyente : oyentes) {
+            oyente.rondaFinalizada(clasificacion, sinResponder);
+        }
+        if (ultimaRonda) {
+            finalizarPartida();
+        } else {
+            Planificador.getInstance().programar(() -> iniciarRonda(actual.numero + 1), PAUSA_ENTRE_RONDAS, TimeUnit.SECONDS);
         }
     }
     
@@ -228,130 +278,189 @@ public class Partida {
     }
     
     public boolean todosHanRespondido() {
-        return jugadoresRespondidos.get() >= jugadores.size();
+        Ronda actual = ronda;
+        return actual != null && actual.respondidos.get() >= jugadores.size();
     }
+    // lista inmutable ya ordenada, compartida por todos los que la leen
     public List<JugadorPartida> obtenerRanking() {
-        return jugadores.stream()
-                .sorted((j1, j2) -> Integer.compare(j2.getPuntuacionTotal(), j1.getPuntuacionTotal()))
-                .collect(Collectors.toList());
+        return ranking.get();
+    }
+    
+    public long getVersionRanking() {
+        return versionRanking.get();
+    }
+    
+    private void rankingCambiado() {
+        // nunca retrocede aunque dos cambios simultáneos escriban en otro orden
+        versionRanking.accumulateAndGet(VERSIONES_RANKING.incrementAndGet(), Math::max);
+    }
+    
+    private static List<JugadorPartida> anadirAlFinal(List<JugadorPartida> actual, JugadorPartida jugador) {
+        JugadorPartida[] nuevo = actual.toArray(new JugadorPartida[actual.size() + 1]);
+        nuevo[actual.size()] = jugador;
+        return List.of(nuevo);
+    }
+    
+    private static List<JugadorPartida> quitar(List<JugadorPartida> actual, JugadorPartida jugador) {
+        int posicion = actual.indexOf(jugador);
+        if (posicion < 0) {
+            return actual;
+        }
+        JugadorPartida[] nuevo = new JugadorPartida[actual.size() - 1];
+        for (int i = 0, j = 0; i < actual.size(); i++) {
+            if (i != posicion) {
+                nuevo[j++] = actual.get(i);
+            }
+        }
+        return List.of(nuevo);
+    }
+    
+    // los puntos solo crecen: basta con subir al jugador; a igualdad, delante quien llegó antes
+    private static List<JugadorPartida> subirEnRanking(List<JugadorPartida> actual, JugadorPartida jugador) {
+        int posicion = actual.indexOf(jugador);
+        if (posicion < 0) {
+            return actual;
+        }
+        JugadorPartida[] nuevo = actual.toArray(new JugadorPartida[0]);
+        int puntos = jugador.getPuntuacionTotal();
+        while (posicion > 0 && nuevo[posicion - 1].getPuntuacionTotal() < puntos) {
+            nuevo[posicion] = nuevo[posicion - 1];
+            posicion--;
+        }
+        nuevo[posicion] = jugador;
+        return List.of(nuevo);
     }
     public String getCodigo() { return codigo; }
     public EstadoPartida getEstado() { return estado; }
     public int getRondaActual() {
-        return rondaActual.get();
+        Ronda actual = ronda;
+        return actual != null ? actual.numero : 0;
     }
     
-    public int getTiempoRonda() { return tiempoRonda; }
+    public int getTiempoRonda() {
+        Ronda actual = ronda;
+        return actual != null ? actual.segundos : 0;
+    }
     
     public Pregunta getPreguntaActual() {
-        synchronized(lockRonda) {
-            int indice = rondaActual.get() - 1;
-            if (indice >= 0 && indice < preguntasPartida.size()) {
-                preguntaActual = preguntasPartida.get(indice);
-                return preguntaActual;
-            }
-            return null;
-        }
+        Ronda actual = ronda;
+        return actual != null ? actual.pregunta : null;
     }
     public List<JugadorPartida> getJugadores() { return new ArrayList<>(jugadores); }
     
     public synchronized boolean partidaFinalizada() {
-        synchronized(lockRonda) {
-            return rondaActual.get() > TOTAL_RONDAS || estado == EstadoPartida.FINALIZADA;
-        }
-    }
-
-    public CyclicBarrier getBarreraRonda() {
-        return barreraRonda;
+        return estado.haFinalizado();
     }
-
-    public CyclicBarrier getBarreraPregunta() {
-        return barreraPregunta;
+    
+    public void finalizarPartida() {
+        Clasificacion resultado;
+        synchronized (this) {
+            if (estado.haFinalizado()) {
+                return;
+            }
+            if (estado != EstadoPartida.ESPERANDO) {
+                historial.registrarPartida(codigo, obtenerRanking());
+            }
+            Registro.debug(() -> "Finalizando partida " + codigo + " en ronda " + getRondaActual() + " de " + TOTAL_RONDAS);
+            this.estado = EstadoPartida.FINALIZADA;
+            ultimaActividad = System.currentTimeMillis();
+            if (plazoRonda != null) {
+                plazoRonda.cancel(false);
+            }
+            clasificacion.partidaFinalizada(getJugadores());
+            resultado = Clasificacion.deFinal(getRondaActual(), obtenerRanking());
+        }
+        for (OyentePartida oyente : oyentes) {
+            oyente.partidaFinalizada(resultado);
+        }
+        oyentes.clear();
     }
-
-    public synchronized void finalizarPartida() {
-        synchronized(lockRonda) {
-            if (estado != EstadoPartida.FINALIZADA) {
-                System.out.println("DEBUG - Finalizando partida en ronda " + rondaActual.get() + " de " + TOTAL_RONDAS);
-                this.estado = EstadoPartida.FINALIZADA;
-                if (barreraRonda != null) barreraRonda.reset();
-                if (barreraPregunta != null) barreraPregunta.reset();
-                if (barreraSiguienteRonda != null) barreraSiguienteRonda.reset();
+    
+    // bajo el cerrojo de las altas: quien entra a la vez impide la cancelación
+    public boolean cancelarSiInactiva(long sinCambiosDesde) {
+        synchronized (this) {
+            if (estado != EstadoPartida.ESPERANDO || ultimaActividad > sinCambiosDesde) {
+                return false;
             }
+            Registro.info("Partida " + codigo + " cancelada por inactividad");
+            this.estado = EstadoPartida.CANCELADA;
+            ultimaActividad = System.currentTimeMillis();
+            clasificacion.partidaFinalizada(getJugadores());
         }
+        for (OyentePartida oyente : oyentes) {
+            oyente.partidaCancelada();
+        }
+        oyentes.clear();
+        return true;
     }
-
+    
+    public long getUltimaActividad() {
+        return ultimaActividad;
+    }
+    
     public int getTOTAL_RONDAS() {
         return TOTAL_RONDAS;
     }
-
-    private long tiempoInicioRonda;
-
-    public void iniciarTiempoRonda() {
-        this.tiempoInicioRonda = System.currentTimeMillis();
-    }
-
-    public long getTiempoRestante() {
-        long tiempoTranscurrido = System.currentTimeMillis() - tiempoInicioRonda;
-        return Math.max(0, tiempoRonda * 1000 - tiempoTranscurrido);
-    }
-
+    
     public boolean hayGanador() {
-        return jugadores.stream().anyMatch(j -> j.getPuntuacionTotal() > 0);
+        List<JugadorPartida> clasificacion = obtenerRanking();
+        return !clasificacion.isEmpty() && clasificacion.get(0).getPuntuacionTotal() > 0;
     }
-
+    
     public boolean hayEmpate() {
-        List<JugadorPartida> ranking = obtenerRanking();
-        if (ranking.size() >= 2) {
-            return ranking.get(0).getPuntuacionTotal() == ranking.get(1).getPuntuacionTotal() 
-                   && ranking.get(0).getPuntuacionTotal() > 0;
+        List<JugadorPartida> clasificacion = obtenerRanking();
+        if (clasificacion.size() >= 2) {
+            return clasificacion.get(0).getPuntuacionTotal() == clasificacion.get(1).getPuntuacionTotal()
+                   && clasificacion.get(0).getPuntuacionTotal() > 0;
         }
         return false;
     }
-
+    
     public List<JugadorPartida> obtenerGanadores() {
-        int maxPuntuacion = jugadores.stream()
-                .mapToInt(JugadorPartida::getPuntuacionTotal)
-                .max()
-                .orElse(0);
-        
-        return jugadores.stream()
-                .filter(j -> j.getPuntuacionTotal() == maxPuntuacion && maxPuntuacion > 0)
-                .collect(Collectors.toList());
-    }
-
-    public CyclicBarrier getBarreraSiguienteRonda() {
-        return barreraSiguienteRonda;
-    }
-
-    public synchronized void eliminarJugador(JugadorPartida jugador) {
-        if (jugador != null && jugadores.contains(jugador)) {
-            jugadores.remove(jugador);
-            System.out.println("Jugador " + jugador.getNombre() + " eliminado de la partida " + codigo);
-            
-            if (jugadores.isEmpty()) {
-                System.out.println("Partida " + codigo + " finalizada por falta de jugadores");
-                finalizarPartida();
-            }
+        List<JugadorPartida> clasificacion = obtenerRanking();
+        int maxPuntuacion = clasificacion.isEmpty() ? 0 : clasificacion.get(0).getPuntuacionTotal();
+        if (maxPuntuacion == 0) {
+            return List.of();
         }
-    }
-
-    public synchronized boolean hanRespondidoTodos() {
-        for (JugadorPartida jugador : jugadores) {
-            if (!jugador.haRespondido()) {
-                return false;
-            }
+        int empatados = 1;
+        while (empatados < clasificacion.size()
+                && clasificacion.get(empatados).getPuntuacionTotal() == maxPuntuacion) {
+            empatados++;
         }
-        return true;
+        return clasificacion.subList(0, empatados);
     }
-
-    public synchronized int getJugadoresSinResponder() {
-        int sinResponder = 0;
-        for (JugadorPartida jugador : jugadores) {
-            if (!jugador.haRespondido()) {
-                sinResponder++;
+    
+    public void eliminarJugador(JugadorPartida jugador) {
+        boolean quedaVacia;
+        int total;
+        Ronda actual = ronda;
+        synchronized (this) {
+            if (jugador == null || !jugadores.remove(jugador)) {
+                return;
             }
+            ultimaActividad = System.currentTimeMillis();
+            ranking.updateAndGet(lista -> quitar(lista, jugador));
+            rankingCambiado();
+            clasificacion.jugadorRetirado(jugador);
+            if (actual != null && actual.abierta && jugador.haRespondido(actual.numero)) {
+                // su respuesta ya no cuenta para cerrar la ronda
+                actual.respondidos.decrementAndGet();
+            }
+            Registro.info("Jugador " + jugador.getNombre() + " eliminado de la partida " + codigo);
+            total = jugadores.size();
+            quedaVacia = total == 0;
+        }
+        if (quedaVacia) {
+            Registro.info("Partida " + codigo + " finalizada por falta de jugadores");
+            finalizarPartida();
+            return;
+        }
+        for (OyentePartida oyente : oyentes) {
+            oyente.jugadorSalio(jugador, total);
+        }
+        if (actual != null && actual.abierta) {
+            // el que se va podía ser el único que faltaba por responder
+            comprobarFinRonda(actual);
         }
-        return sinResponder;
     }
 }
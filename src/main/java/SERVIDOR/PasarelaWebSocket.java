@@ -0,0 +1,84 @@
+package SERVIDOR;
+
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.Session;
+import javax.websocket.server.ServerContainer;
+import javax.websocket.server.ServerEndpointConfig;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Punto de entrada WebSocket para jugar desde el navegador con los mensajes
+ * de {@link ProtocoloJson}. Cada sesión es un {@link ControladorCliente} más
+ * sobre una {@link ConexionWebSocket}, así que los jugadores web comparten
+ * partidas con los de {@code Cliente} por TCP.
+ *
+ * Las sesiones no tienen hilo propio: los mensajes llegan en los hilos del
+ * servidor web y se atienden en un pool de trabajadores solo mientras hay
+ * algo que hacer.
+ */
+public class PasarelaWebSocket extends Endpoint {
+    public static final String RUTA = "/ws/trivial";
+
+    private static final String CONEXION = ConexionWebSocket.class.getName();
+
+    private final GestorPartidas gestorPartidas;
+    private final ExecutorService trabajadores;
+
+    private PasarelaWebSocket(GestorPartidas gestorPartidas) {
+        this.gestorPartidas = gestorPartidas;
+        AtomicInteger contador = new AtomicInteger();
+        this.trabajadores = Executors.newCachedThreadPool(tarea -> {
+            Thread hilo = new Thread(tarea, "websocket-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /** Publica la pasarela en {@link #RUTA}; todas las sesiones usan la misma instancia. */
+    public static void registrar(ServerContainer contenedor, GestorPartidas gestorPartidas) throws DeploymentException {
+        PasarelaWebSocket pasarela = new PasarelaWebSocket(gestorPartidas);
+        contenedor.addEndpoint(ServerEndpointConfig.Builder.create(PasarelaWebSocket.class, RUTA)
+                .configurator(new ServerEndpointConfig.Configurator() {
+                    @Override
+                    public <T> T getEndpointInstance(Class<T> clase) {
+                        return clase.cast(pasarela);
+                    }
+                })
+                .build());
+    }
+
+    @Override
+    public void onOpen(Session sesion, EndpointConfig config) {
+        sesion.setMaxTextMessageBufferSize(ProtocoloJson.MAX_MENSAJE_ENTRADA);
+        ConexionWebSocket conexion = new ConexionWebSocket(sesion, trabajadores);
+        ControladorCliente controlador = new ControladorCliente(conexion, gestorPartidas, new SalidaJson(conexion));
+        conexion.setManejadores(controlador::atenderOrden, controlador::atenderDesconexion);
+        sesion.getUserProperties().put(CONEXION, conexion);
+        controlador.iniciarSesion();
+        sesion.addMessageHandler(String.class, (MessageHandler.Whole<String>) conexion::mensajeRecibido);
+    }
+
+    @Override
+    public void onClose(Session sesion, CloseReason motivo) {
+        ConexionWebSocket conexion = (ConexionWebSocket) sesion.getUserProperties().get(CONEXION);
+        if (conexion != null) {
+            conexion.cerradaPorCliente();
+        }
+    }
+
+    @Override
+    public void onError(Session sesion, Throwable error) {
+        // un navegador que se va sin cerrar llega como IOException: es una desconexión más
+        if (!(error instanceof IOException)) {
+            Registro.warn("Error en sesión WebSocket " + sesion.getId() + ": " + error);
+        }
+        onClose(sesion, null);
+    }
+}
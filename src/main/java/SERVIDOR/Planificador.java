@@ -0,0 +1,46 @@
+package SERVIDOR;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutor programado compartido por todas las partidas. Los plazos de ronda
+ * y las pausas entre rondas son tareas suyas, de modo que ningún hilo de
+ * sesión queda esperando a los demás jugadores.
+ */
+public class Planificador {
+    private static final Planificador instancia = new Planificador();
+    private final ScheduledThreadPoolExecutor ejecutor;
+
+    private Planificador() {
+        AtomicInteger contador = new AtomicInteger();
+        int hilos = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+        this.ejecutor = new ScheduledThreadPoolExecutor(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "planificador-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // la mayoría de plazos (rondas, grupos de partida rápida) se cancelan
+        // mucho antes de vencer; así no se acumulan en la cola hasta entonces
+        ejecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static Planificador getInstance() {
+        return instancia;
+    }
+
+    public ScheduledFuture<?> programar(Runnable tarea, long retraso, TimeUnit unidad) {
+        return ejecutor.schedule(tarea, retraso, unidad);
+    }
+
+    /** Repite la tarea con el retraso dado entre el final de una pasada y la siguiente. */
+    public ScheduledFuture<?> programarPeriodica(Runnable tarea, long periodo, TimeUnit unidad) {
+        return ejecutor.scheduleWithFixedDelay(tarea, periodo, periodo, unidad);
+    }
+
+    public void ejecutar(Runnable tarea) {
+        ejecutor.execute(tarea);
+    }
+}
@@ -2,6 +2,9 @@
 package SERVIDOR;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  *
@@ -13,13 +16,21 @@ public class Pregunta {
     private final String codigo;
     private final List<String> opciones;
     private final int respuestaCorrecta;
+    private final String categoria;
+    // la pregunta ya codificada para cada formato de salida; ver codificada()
+    private final Map<Class<?>, byte[]> codificaciones = new ConcurrentHashMap<>(2);
     
     public Pregunta(int id, String enunciado, String codigo, List<String> opciones, int respuestaCorrecta) {
+        this(id, enunciado, codigo, opciones, respuestaCorrecta, null);
+    }
+    
+    public Pregunta(int id, String enunciado, String codigo, List<String> opciones, int respuestaCorrecta, String categoria) {
         this.id = id;
         this.enunciado = enunciado;
         this.codigo = codigo;
-        this.opciones = opciones;
+        this.opciones = List.copyOf(opciones);
         this.respuestaCorrecta = respuestaCorrecta;
+        this.categoria = categoria;
     }
     
     public int getId() { return id; }
@@ -27,8 +38,21 @@ public class Pregunta {
     public String getCodigo() { return codigo; }
     public List<String> getOpciones() { return opciones; }
     public int getRespuestaCorrecta() { return respuestaCorrecta; }
+    public String getCategoria() { return categoria; }
+    
+    /**
+     * Los bytes de la pregunta en el formato dado. Se generan la primera vez
+     * que se envía y todas las partidas que la usen comparten ese array, que
+     * no se modifica.
+     */
+    byte[] codificada(Class<?> formato, Function<Pregunta, byte[]> codificar) {
+        return codificaciones.computeIfAbsent(formato, clave -> codificar.apply(this));
+    }
     
     public boolean esRespuestaCorrecta(String respuesta) {
+        if (respuesta.isEmpty()) {
+            return false;
+        }
         int indiceRespuesta = respuesta.charAt(0) - 'A';
         return indiceRespuesta == respuestaCorrecta;
     }
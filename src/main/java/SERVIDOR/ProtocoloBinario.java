@@ -0,0 +1,81 @@
+package SERVIDOR;
+
+/**
+ * Protocolo binario opcional para bots y otros clientes automáticos.
+ *
+ * El cliente lo pide enviando {@link #NEGOCIACION} como primera línea. El
+ * servidor contesta {@link #CONFIRMACION} todavía como línea de texto y desde
+ * ahí los dos lados hablan en tramas:
+ *
+ * <pre>
+ *   u16 longitud de opcode + carga | u8 opcode | carga
+ * </pre>
+ *
+ * Los enteros van en big-endian y las cadenas como en
+ * {@link java.io.DataOutput#writeUTF}. Un jugador se presenta una sola vez
+ * con {@link #JUGADOR} y después se le nombra por su número; la numeración
+ * vale hasta el siguiente {@link #MENU}.
+ */
+public final class ProtocoloBinario {
+
+    public static final String NEGOCIACION = "#BINARIO 1";
+    public static final String CONFIRMACION = "#BINARIO OK";
+
+    // cliente -> servidor
+    /** nombre */
+    public static final int CREAR = 0x01;
+    /** nombre, código de partida */
+    public static final int UNIRSE = 0x02;
+    public static final int COMENZAR = 0x03;
+    public static final int ESPERAR = 0x04;
+    /** u8 opción, 0 para la A */
+    public static final int RESPONDER = 0x05;
+    public static final int SALIR = 0x06;
+    /** nombre; entra en la cola de partida rápida */
+    public static final int PARTIDA_RAPIDA = 0x07;
+
+    // servidor -> cliente
+    public static final int MENU = 0x40;
+    /** código de partida */
+    public static final int PARTIDA_CREADA = 0x41;
+    /** código de partida */
+    public static final int UNIDO = 0x42;
+    /** u8 número, nombre */
+    public static final int JUGADOR = 0x43;
+    /** u8 jugadores conectados; solo al creador */
+    public static final int SALA = 0x44;
+    /** u8 número */
+    public static final int JUGADOR_SALIO = 0x45;
+    public static final int INICIO = 0x46;
+    /** u8 ronda, u8 rondas, u16 segundos, i32 id, enunciado, código, u8 n, n opciones */
+    public static final int PREGUNTA = 0x47;
+    public static final int RESPUESTA_REGISTRADA = 0x48;
+    /** u8 jugadores sin responder */
+    public static final int PENDIENTES = 0x49;
+    /** u8 ronda, bool quedan rondas, u8 n, n x (u8 número, i32 puntos); igual para toda la partida */
+    public static final int RESULTADO_RONDA = 0x4A;
+    /** u8 n, n x (u8 número, i32 puntos), u8 g, g x u8 número de ganador; igual para toda la partida */
+    public static final int RESULTADO_FINAL = 0x4B;
+    public static final int CANCELADA = 0x4C;
+    /** u8 código de {@link SalidaCliente.Aviso} */
+    public static final int AVISO = 0x4D;
+    public static final int ADIOS = 0x4E;
+    /** solo a quien no respondió; precede a RESULTADO_RONDA */
+    public static final int TIEMPO_AGOTADO = 0x4F;
+    /** en la cola de partida rápida */
+    public static final int EN_COLA = 0x50;
+    /** código de partida; la cola le ha asignado partida y le sigue INICIO */
+    public static final int EMPAREJADO = 0x51;
+
+    /** Tamaño máximo de opcode + carga en las tramas que envía el cliente. */
+    static final int MAX_TRAMA_ENTRADA = 8192;
+    /** Lo más que cabe en el u16 de longitud de una trama. */
+    static final int MAX_TRAMA = 0xFFFF;
+
+    private ProtocoloBinario() {
+    }
+
+    public static boolean esNegociacion(String linea) {
+        return NEGOCIACION.equals(linea.trim());
+    }
+}
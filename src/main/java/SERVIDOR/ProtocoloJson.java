@@ -0,0 +1,86 @@
+package SERVIDOR;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Mensajes de la pasarela WebSocket ({@link PasarelaWebSocket}): un objeto
+ * JSON por mensaje de texto, con su clase en el campo {@code "tipo"}.
+ *
+ * Del cliente:
+ * <pre>
+ *   crear {nombre}            unirse {nombre, codigo}     partidaRapida {nombre}
+ *   comenzar                  esperar
+ *   responder {opcion: "A" o 0}   salir
+ * </pre>
+ * Del servidor:
+ * <pre>
+ *   menu                      partidaCreada {codigo}     unido {codigo}
+ *   enCola                    emparejado {codigo}
+ *   aviso {codigo, texto}     sala {jugadores}           jugadorSalio {nombre}
+ *   inicio                    respuestaRegistrada        pendientes {jugadores}
+ *   pregunta {ronda, total, segundos, pregunta: {id, enunciado, codigo, opciones}}
+ *   tiempoAgotado             resultadoRonda {ronda, quedanRondas, ranking: [{nombre, puntos}]}
+ *   resultadoFinal {ranking, ganadores: [nombre]}
+ *   cancelada                 adios
+ * </pre>
+ * Los códigos de aviso son los de {@link SalidaCliente.Aviso}.
+ */
+public final class ProtocoloJson {
+
+    /** Tamaño máximo, en caracteres, de los mensajes que envía el cliente. */
+    static final int MAX_MENSAJE_ENTRADA = 8192;
+
+    private ProtocoloJson() {
+    }
+
+    /**
+     * Traduce un mensaje del cliente a una {@link Orden}, igual que
+     * {@link DecodificadorEntrada} con las tramas binarias. Si la orden no
+     * cabe en el estado de la sesión, el controlador responde con un aviso.
+     */
+    static Orden traducir(String mensaje) throws IOException {
+        try {
+            JSONObject json = new JSONObject(mensaje);
+            String tipo = json.getString("tipo");
+            switch (tipo) {
+                case "crear":
+                    return Orden.crear(json.getString("nombre"));
+                case "unirse":
+                    return Orden.unirse(json.getString("nombre"), json.getString("codigo"));
+                case "partidaRapida":
+                    return Orden.partidaRapida(json.getString("nombre"));
+                case "comenzar":
+                    return Orden.de(Orden.Tipo.COMENZAR);
+                case "esperar":
+                    return Orden.de(Orden.Tipo.ESPERAR);
+                case "responder":
+                    return Orden.responder(leerOpcion(json.get("opcion")));
+                case "salir":
+                    return Orden.de(Orden.Tipo.SALIR);
+                default:
+                    throw new IOException("Tipo de mensaje desconocido: " + tipo);
+            }
+        } catch (JSONException e) {
+            throw new IOException("Mensaje JSON no válido: " + e.getMessage());
+        }
+    }
+
+    /** La opción llega como letra ("A") o como índice desde 0. */
+    private static int leerOpcion(Object opcion) throws IOException {
+        if (opcion instanceof Number) {
+            int indice = ((Number) opcion).intValue();
+            if (indice >= 0 && indice < 26) {
+                return indice;
+            }
+        } else if (opcion instanceof String && ((String) opcion).length() == 1) {
+            char letra = Character.toUpperCase(((String) opcion).charAt(0));
+            if (letra >= 'A' && letra <= 'Z') {
+                return letra - 'A';
+            }
+        }
+        throw new IOException("Opción no válida: " + opcion);
+    }
+}
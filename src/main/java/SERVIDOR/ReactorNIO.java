@@ -0,0 +1,124 @@
+package SERVIDOR;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bucle de eventos que atiende lecturas y escrituras de un subconjunto de
+ * conexiones. El servidor crea uno por núcleo y reparte las conexiones entre ellos.
+ */
+final class ReactorNIO implements Runnable {
+    private final Selector selector;
+    private final Queue<ConexionNIO> pendientes = new ConcurrentLinkedQueue<>();
+    // un único buffer de lectura por reactor: las conexiones ociosas no reservan memoria para leer
+    private final ByteBuffer lectura = ByteBuffer.allocateDirect(16 * 1024);
+    private volatile boolean detenido;
+
+    ReactorNIO() throws IOException {
+        this.selector = Selector.open();
+    }
+
+    void registrar(ConexionNIO conexion) {
+        pendientes.add(conexion);
+        selector.wakeup();
+    }
+
+    void despertar() {
+        selector.wakeup();
+    }
+
+    /** Pide al bucle que termine; al salir cierra las conexiones que atendía. */
+    void detener() {
+        detenido = true;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (!detenido) {
+            try {
+                selector.select();
+                registrarPendientes();
+                Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+                while (claves.hasNext()) {
+                    SelectionKey clave = claves.next();
+                    claves.remove();
+                    atender(clave);
+                }
+            } catch (IOException e) {
+                Registro.error("Error en reactor: " + e.getMessage());
+            }
+        }
+        cerrarConexiones();
+    }
+
+    /**
+     * Cierra todas las conexiones del reactor como si las hubiera cortado el
+     * cliente, para que cada sesión salga de su partida, y luego el selector.
+     * Solo desde el hilo del reactor o con el reactor parado.
+     */
+    void cerrarConexiones() {
+        ConexionNIO conexion;
+        while ((conexion = pendientes.poll()) != null) {
+            conexion.cerradaPorCliente();
+        }
+        if (selector.isOpen()) {
+            for (SelectionKey clave : new ArrayList<>(selector.keys())) {
+                ((ConexionNIO) clave.attachment()).cerradaPorCliente();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            Registro.warn("Error al cerrar reactor: " + e.getMessage());
+        }
+    }
+
+    private void registrarPendientes() {
+        ConexionNIO conexion;
+        while ((conexion = pendientes.poll()) != null) {
+            try {
+                SelectionKey clave = conexion.getCanal().register(selector, SelectionKey.OP_READ, conexion);
+                conexion.registrada(clave);
+            } catch (ClosedChannelException e) {
+                // la sesión se cerró antes de llegar a registrarse
+            }
+        }
+    }
+
+    private void atender(SelectionKey clave) {
+        ConexionNIO conexion = (ConexionNIO) clave.attachment();
+        try {
+            if (clave.isReadable()) {
+                leer(conexion);
+            }
+            if (clave.isValid() && clave.isWritable()) {
+                conexion.escribible();
+            }
+        } catch (CancelledKeyException e) {
+            conexion.cerradaPorCliente();
+        }
+    }
+
+    private void leer(ConexionNIO conexion) {
+        lectura.clear();
+        try {
+            if (conexion.getCanal().read(lectura) < 0) {
+                conexion.cerradaPorCliente();
+                return;
+            }
+            lectura.flip();
+            conexion.datosRecibidos(lectura);
+        } catch (IOException e) {
+            conexion.cerradaPorCliente();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package SERVIDOR;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Registro asíncrono: con el buffer lleno se descarta el mensaje, nunca se
+ * bloquea a quien registra. Nivel con {@code -Dtrivial.log} (INFO por defecto).
+ */
+public final class Registro {
+
+    public enum Nivel { DEBUG, INFO, WARN, ERROR }
+
+    private static final int CAPACIDAD = 8192;
+    private static final int MAX_LOTE = 256;
+    private static final BlockingQueue<Entrada> cola = new ArrayBlockingQueue<>(CAPACIDAD);
+    private static final AtomicLong descartados = new AtomicLong();
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+    private static volatile Nivel nivelMinimo = leerNivel();
+
+    static {
+        Thread escritor = new Thread(Registro::escribir, "registro");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    private Registro() {
+    }
+
+    private static final class Entrada {
+        final Nivel nivel;
+        final long instante;
+        final String hilo;
+        final String mensaje;
+
+        Entrada(Nivel nivel, String mensaje) {
+            this.nivel = nivel;
+            this.instante = System.currentTimeMillis();
+            this.hilo = Thread.currentThread().getName();
+            this.mensaje = mensaje;
+        }
+    }
+
+    private static Nivel leerNivel() {
+        try {
+            return Nivel.valueOf(System.getProperty("trivial.log", "INFO").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Nivel.INFO;
+        }
+    }
+
+    public static void setNivel(Nivel nivel) {
+        nivelMinimo = nivel;
+    }
+
+    public static boolean activo(Nivel nivel) {
+        return nivel.compareTo(nivelMinimo) >= 0;
+    }
+
+    public static void debug(Supplier<String> mensaje) {
+        if (activo(Nivel.DEBUG)) {
+            publicar(Nivel.DEBUG, mensaje.get());
+        }
+    }
+
+    public static void info(String mensaje) {
+        if (activo(Nivel.INFO)) {
+            publicar(Nivel.INFO, mensaje);
+        }
+    }
+
+    public static void warn(String mensaje) {
+        if (activo(Nivel.WARN)) {
+            publicar(Nivel.WARN, mensaje);
+        }
+    }
+
+    public static void error(String mensaje) {
+        publicar(Nivel.ERROR, mensaje);
+    }
+
+    public static long getDescartados() {
+        return descartados.get();
+    }
+
+    private static void publicar(Nivel nivel, String mensaje) {
+        if (!cola.offer(new Entrada(nivel, mensaje))) {
+            descartados.incrementAndGet();
+        }
+    }
+
+    private static void escribir() {
+        List<Entrada> lote = new ArrayList<>(MAX_LOTE);
+        StringBuilder salida = new StringBuilder();
+        StringBuilder errores = new StringBuilder();
+        long descartadosAvisados = 0;
+        while (true) {
+            try {
+                lote.add(cola.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            cola.drainTo(lote, MAX_LOTE - 1);
+            for (Entrada entrada : lote) {
+                StringBuilder destino = entrada.nivel.compareTo(Nivel.WARN) >= 0 ? errores : salida;
+                formatear(destino, entrada);
+            }
+            long totalDescartados = descartados.get();
+            if (totalDescartados > descartadosAvisados) {
+                errores.append("Registro: ").append(totalDescartados - descartadosAvisados)
+                       .append(" mensajes descartados por buffer lleno\n");
+                descartadosAvisados = totalDescartados;
+            }
+            volcar(System.out, salida);
+            volcar(System.err, errores);
+            lote.clear();
+        }
+    }
+
+    private static void formatear(StringBuilder destino, Entrada entrada) {
+        destino.append(LocalTime.ofInstant(Instant.ofEpochMilli(entrada.instante), ZONA))
+               .append(' ').append(entrada.nivel)
+               .append(" [").append(entrada.hilo).append("] ")
+               .append(entrada.mensaje).append('\n');
+    }
+
+    private static void volcar(PrintStream flujo, StringBuilder texto) {
+        if (texto.length() > 0) {
+            flujo.print(texto);
+            flujo.flush();
+            texto.setLength(0);
+        }
+    }
+}
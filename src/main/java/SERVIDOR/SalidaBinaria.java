@@ -0,0 +1,277 @@
+package SERVIDOR;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static SERVIDOR.ProtocoloBinario.*;
+
+/**
+ * Codifica la salida en tramas de {@link ProtocoloBinario}. Cada mensaje sale
+ * en una sola escritura; los métodos son synchronized porque los eventos de
+ * la partida llegan desde varios hilos y la numeración de jugadores tiene que
+ * llegar al cliente antes que las tramas que la usan.
+ *
+ * Los jugadores se identifican por su número en la partida, así que las
+ * tramas de resultados son iguales para todas las sesiones: se codifican una
+ * vez por {@link Clasificacion} y se envían los mismos bytes. La parte fija de
+ * PREGUNTA se guarda en la propia {@link Pregunta}.
+ */
+final class SalidaBinaria implements SalidaCliente {
+    private final Conexion conexion;
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+    private final DataOutputStream datos = new DataOutputStream(buffer);
+    // jugador al que el cliente asocia cada número; se rehace si otro lo hereda
+    private final Map<Integer, JugadorPartida> presentados = new HashMap<>();
+
+    SalidaBinaria(Conexion conexion) {
+        this.conexion = conexion;
+    }
+
+    @Override
+    public synchronized void menuPrincipal() {
+        presentados.clear();
+        enviar(MENU);
+    }
+
+    @Override
+    public void pedirNombre() {
+        // el nombre viene dentro de CREAR o UNIRSE
+    }
+
+    @Override
+    public void pedirCodigo() {
+    }
+
+    @Override
+    public synchronized void partidaCreada(String codigo) {
+        try {
+            iniciar(PARTIDA_CREADA);
+            datos.writeUTF(codigo);
+            terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void unidoAPartida(String codigo) {
+        try {
+            iniciar(UNIDO);
+            datos.writeUTF(codigo);
+            terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void buscandoPartida() {
+        enviar(EN_COLA);
+    }
+
+    @Override
+    public synchronized void partidaEncontrada(String codigo) {
+        try {
+            iniciar(EMPAREJADO);
+            datos.writeUTF(codigo);
+            terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void aviso(Aviso aviso) {
+        iniciar(AVISO);
+        buffer.write(aviso.getCodigo());
+        terminar();
+    }
+
+    @Override
+    public synchronized void menuComenzar(int jugadoresConectados) {
+        iniciar(SALA);
+        buffer.write(jugadoresConectados);
+        terminar();
+    }
+
+    @Override
+    public synchronized void jugadorSalio(JugadorPartida saliente) {
+        if (presentados.get(saliente.getNumero()) != saliente) {
+            return; // el cliente no llegó a conocerlo
+        }
+        iniciar(JUGADOR_SALIO);
+        buffer.write(saliente.getNumero());
+        terminar();
+    }
+
+    @Override
+    public synchronized void partidaIniciada() {
+        enviar(INICIO);
+    }
+
+    @Override
+    public synchronized void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos) {
+        try {
+            iniciar(PREGUNTA);
+            buffer.write(ronda);
+            buffer.write(totalRondas);
+            datos.writeShort(segundos);
+            buffer.write(pregunta.codificada(SalidaBinaria.class, SalidaBinaria::codificarPregunta));
+            terminar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** De PREGUNTA, todo lo que va detrás de los segundos. */
+    private static byte[] codificarPregunta(Pregunta pregunta) {
+        return fragmento(datos -> {
+            datos.writeInt(pregunta.getId());
+            datos.writeUTF(pregunta.getEnunciado());
+            datos.writeUTF(pregunta.getCodigo() != null ? pregunta.getCodigo() : "");
+            List<String> opciones = pregunta.getOpciones();
+            datos.writeByte(opciones.size());
+            for (String opcion : opciones) {
+                datos.writeUTF(opcion);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void respuestaRegistrada() {
+        enviar(RESPUESTA_REGISTRADA);
+    }
+
+    @Override
+    public synchronized void faltanPorResponder(int jugadoresSinResponder) {
+        iniciar(PENDIENTES);
+        buffer.write(jugadoresSinResponder);
+        conexion.enviarProgreso(conLongitud(buffer.toByteArray()));
+    }
+
+    @Override
+    public synchronized void rondaFinalizada(Clasificacion clasificacion, boolean tiempoAgotado) {
+        presentar(clasificacion.getRanking());
+        if (tiempoAgotado) {
+            enviar(TIEMPO_AGOTADO);
+        }
+        conexion.enviar(clasificacion.codificada(SalidaBinaria.class, SalidaBinaria::codificarRonda));
+    }
+
+    private static byte[] codificarRonda(Clasificacion clasificacion) {
+        return trama(RESULTADO_RONDA, datos -> {
+            datos.writeByte(clasificacion.getRonda());
+            datos.writeBoolean(clasificacion.quedanRondas());
+            escribirPuntuaciones(datos, clasificacion);
+        });
+    }
+
+    @Override
+    public synchronized void resultadosFinales(Clasificacion resultado) {
+        presentar(resultado.getRanking());
+        conexion.enviar(resultado.codificada(SalidaBinaria.class, SalidaBinaria::codificarFinal));
+    }
+
+    private static byte[] codificarFinal(Clasificacion resultado) {
+        return trama(RESULTADO_FINAL, datos -> {
+            escribirPuntuaciones(datos, resultado);
+            List<JugadorPartida> ganadores = resultado.getGanadores();
+            datos.writeByte(ganadores.size());
+            for (JugadorPartida ganador : ganadores) {
+                datos.writeByte(ganador.getNumero());
+            }
+        });
+    }
+
+    @Override
+    public synchronized void partidaCancelada() {
+        enviar(CANCELADA);
+    }
+
+    @Override
+    public synchronized void despedida() {
+        enviar(ADIOS);
+    }
+
+    /** Envía una trama JUGADOR por cada jugador que el cliente aún no conoce. */
+    private void presentar(List<JugadorPartida> jugadores) {
+        for (JugadorPartida jugador : jugadores) {
+            if (presentados.put(jugador.getNumero(), jugador) == jugador) {
+                continue;
+            }
+            try {
+                iniciar(JUGADOR);
+                buffer.write(jugador.getNumero());
+                datos.writeUTF(jugador.getNombre());
+                terminar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static void escribirPuntuaciones(DataOutputStream datos, Clasificacion clasificacion) throws IOException {
+        List<JugadorPartida> ranking = clasificacion.getRanking();
+        datos.writeByte(ranking.size());
+        for (int i = 0; i < ranking.size(); i++) {
+            datos.writeByte(ranking.get(i).getNumero());
+            datos.writeInt(clasificacion.getPuntos(i));
+        }
+    }
+
+    private void enviar(int opcode) {
+        iniciar(opcode);
+        terminar();
+    }
+
+    private void iniciar(int opcode) {
+        buffer.reset();
+        // hueco para la longitud, que se conoce al terminar
+        buffer.write(0);
+        buffer.write(0);
+        buffer.write(opcode);
+    }
+
+    private void terminar() {
+        conexion.enviar(conLongitud(buffer.toByteArray()));
+    }
+
+    private static byte[] conLongitud(byte[] trama) {
+        int longitud = trama.length - 2;
+        if (longitud > MAX_TRAMA) {
+            throw new IllegalStateException("Trama de " + longitud + " bytes: no cabe en la longitud u16");
+        }
+        trama[0] = (byte) (longitud >>> 8);
+        trama[1] = (byte) longitud;
+        return trama;
+    }
+
+    private interface Escritura {
+        void escribir(DataOutputStream datos) throws IOException;
+    }
+
+    /** Trama completa para compartir entre sesiones. */
+    private static byte[] trama(int opcode, Escritura escritura) {
+        return conLongitud(fragmento(datos -> {
+            datos.writeShort(0);
+            datos.writeByte(opcode);
+            escritura.escribir(datos);
+        }));
+    }
+
+    /** Trozo de carga para copiar dentro de la trama de cada sesión. */
+    private static byte[] fragmento(Escritura escritura) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(256);
+        try {
+            escritura.escribir(new DataOutputStream(salida));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package SERVIDOR;
+
+/**
+ * Lo que {@link ControladorCliente} comunica al cliente, sin fijar cómo se
+ * codifica: en texto para la consola ({@link SalidaTexto}) o en tramas del
+ * {@link ProtocoloBinario} ({@link SalidaBinaria}).
+ */
+public interface SalidaCliente {
+
+    /**
+     * Mensajes sin datos. El código es el que viaja en las tramas
+     * {@link ProtocoloBinario#AVISO}, así que no debe cambiar.
+     */
+    enum Aviso {
+        OPCION_NO_VALIDA(1, "Opción no válida"),
+        PARTIDA_NO_ENCONTRADA(2, "Partida no encontrada"),
+        NO_SE_PUEDE_UNIR(3, "No se puede unir a la partida"),
+        FUERA_DE_RONDA(4, "Espera a la siguiente pregunta."),
+        ESPERANDO_CREADOR(5, "Esperando a que el creador inicie la partida..."),
+        JUGADORES_INSUFICIENTES(6, "\nNo hay suficientes jugadores para comenzar (mínimo 2).\n\nEsperando que se unan más jugadores..."),
+        ESPERANDO_JUGADORES(7, "\nEsperando que se unan más jugadores..."),
+        BUSCANDO_PARTIDA(8, "Buscando rivales..."),
+        ORDEN_NO_VALIDA(9, "Eso no se puede hacer ahora");
+
+        private final int codigo;
+        private final String texto;
+
+        Aviso(int codigo, String texto) {
+            this.codigo = codigo;
+            this.texto = texto;
+        }
+
+        public int getCodigo() {
+            return codigo;
+        }
+
+        public String getTexto() {
+            return texto;
+        }
+
+        public static Aviso deCodigo(int codigo) {
+            for (Aviso aviso : values()) {
+                if (aviso.codigo == codigo) {
+                    return aviso;
+                }
+            }
+            return null;
+        }
+    }
+
+    void menuPrincipal();
+
+    /** Petición de un dato que el cliente de texto teclea en la línea siguiente. */
+    void pedirNombre();
+
+    void pedirCodigo();
+
+    void partidaCreada(String codigo);
+
+    void unidoAPartida(String codigo);
+
+    /** El jugador ha entrado en la cola de partida rápida. */
+    void buscandoPartida();
+
+    /** La cola le ha asignado partida; el inicio llega justo después. */
+    void partidaEncontrada(String codigo);
+
+    void aviso(Aviso aviso);
+
+    /** Menú del creador para arrancar la partida. */
+    void menuComenzar(int jugadoresConectados);
+
+    void jugadorSalio(JugadorPartida saliente);
+
+    void partidaIniciada();
+
+    void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos);
+
+    void respuestaRegistrada();
+
+    void faltanPorResponder(int jugadoresSinResponder);
+
+    void rondaFinalizada(Clasificacion clasificacion, boolean tiempoAgotado);
+
+    void resultadosFinales(Clasificacion resultado);
+
+    void partidaCancelada();
+
+    void despedida();
+}
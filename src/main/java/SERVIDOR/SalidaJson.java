@@ -0,0 +1,173 @@
+package SERVIDOR;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Codifica la salida en los mensajes de {@link ProtocoloJson}, uno por cada
+ * llamada a {@link Conexion#enviar(byte[])}. Como con {@link SalidaBinaria},
+ * la pregunta y las clasificaciones se codifican una vez y todas las sesiones
+ * envían los mismos bytes.
+ */
+final class SalidaJson implements SalidaCliente {
+    private static final byte[] TIEMPO_AGOTADO = bytes(mensaje("tiempoAgotado"));
+
+    private final Conexion conexion;
+
+    SalidaJson(Conexion conexion) {
+        this.conexion = conexion;
+    }
+
+    @Override
+    public void menuPrincipal() {
+        enviar(mensaje("menu"));
+    }
+
+    @Override
+    public void pedirNombre() {
+        // el nombre viene dentro de crear o unirse
+    }
+
+    @Override
+    public void pedirCodigo() {
+    }
+
+    @Override
+    public void partidaCreada(String codigo) {
+        enviar(mensaje("partidaCreada").put("codigo", codigo));
+    }
+
+    @Override
+    public void unidoAPartida(String codigo) {
+        enviar(mensaje("unido").put("codigo", codigo));
+    }
+
+    @Override
+    public void buscandoPartida() {
+        enviar(mensaje("enCola"));
+    }
+
+    @Override
+    public void partidaEncontrada(String codigo) {
+        enviar(mensaje("emparejado").put("codigo", codigo));
+    }
+
+    @Override
+    public void aviso(Aviso aviso) {
+        enviar(mensaje("aviso").put("codigo", aviso.getCodigo()).put("texto", aviso.getTexto().trim()));
+    }
+
+    @Override
+    public void menuComenzar(int jugadoresConectados) {
+        enviar(mensaje("sala").put("jugadores", jugadoresConectados));
+    }
+
+    @Override
+    public void jugadorSalio(JugadorPartida saliente) {
+        enviar(mensaje("jugadorSalio").put("nombre", saliente.getNombre()));
+    }
+
+    @Override
+    public void partidaIniciada() {
+        enviar(mensaje("inicio"));
+    }
+
+    @Override
+    public void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos) {
+        // la pregunta ya codificada se inserta como último campo del objeto
+        String cabecera = "{\"tipo\":\"pregunta\",\"ronda\":" + ronda + ",\"total\":" + totalRondas
+                + ",\"segundos\":" + segundos + ",\"pregunta\":";
+        byte[] inicio = cabecera.getBytes(StandardCharsets.UTF_8);
+        byte[] cuerpo = pregunta.codificada(SalidaJson.class, SalidaJson::codificarPregunta);
+        byte[] mensaje = new byte[inicio.length + cuerpo.length + 1];
+        System.arraycopy(inicio, 0, mensaje, 0, inicio.length);
+        System.arraycopy(cuerpo, 0, mensaje, inicio.length, cuerpo.length);
+        mensaje[mensaje.length - 1] = '}';
+        conexion.enviar(mensaje);
+    }
+
+    private static byte[] codificarPregunta(Pregunta pregunta) {
+        JSONObject json = new JSONObject()
+                .put("id", pregunta.getId())
+                .put("enunciado", pregunta.getEnunciado())
+                .put("codigo", pregunta.getCodigo() != null ? pregunta.getCodigo() : "")
+                .put("opciones", new JSONArray(pregunta.getOpciones()));
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void respuestaRegistrada() {
+        enviar(mensaje("respuestaRegistrada"));
+    }
+
+    @Override
+    public void faltanPorResponder(int jugadoresSinResponder) {
+        conexion.enviarProgreso(bytes(mensaje("pendientes").put("jugadores", jugadoresSinResponder)));
+    }
+
+    @Override
+    public void rondaFinalizada(Clasificacion clasificacion, boolean tiempoAgotado) {
+        if (tiempoAgotado) {
+            conexion.enviar(TIEMPO_AGOTADO);
+        }
+        conexion.enviar(clasificacion.codificada(SalidaJson.class, SalidaJson::codificarRonda));
+    }
+
+    private static byte[] codificarRonda(Clasificacion clasificacion) {
+        return bytes(mensaje("resultadoRonda")
+                .put("ronda", clasificacion.getRonda())
+                .put("quedanRondas", clasificacion.quedanRondas())
+                .put("ranking", ranking(clasificacion)));
+    }
+
+    @Override
+    public void resultadosFinales(Clasificacion resultado) {
+        conexion.enviar(resultado.codificada(SalidaJson.class, SalidaJson::codificarFinal));
+    }
+
+    private static byte[] codificarFinal(Clasificacion resultado) {
+        JSONArray ganadores = new JSONArray();
+        for (JugadorPartida ganador : resultado.getGanadores()) {
+            ganadores.put(ganador.getNombre());
+        }
+        return bytes(mensaje("resultadoFinal")
+                .put("ranking", ranking(resultado))
+                .put("ganadores", ganadores));
+    }
+
+    @Override
+    public void partidaCancelada() {
+        enviar(mensaje("cancelada"));
+    }
+
+    @Override
+    public void despedida() {
+        enviar(mensaje("adios"));
+    }
+
+    private static JSONArray ranking(Clasificacion clasificacion) {
+        JSONArray ranking = new JSONArray();
+        List<JugadorPartida> jugadores = clasificacion.getRanking();
+        for (int i = 0; i < jugadores.size(); i++) {
+            ranking.put(new JSONObject()
+                    .put("nombre", jugadores.get(i).getNombre())
+                    .put("puntos", clasificacion.getPuntos(i)));
+        }
+        return ranking;
+    }
+
+    private static JSONObject mensaje(String tipo) {
+        return new JSONObject().put("tipo", tipo);
+    }
+
+    private static byte[] bytes(JSONObject json) {
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void enviar(JSONObject json) {
+        conexion.enviar(bytes(json));
+    }
+}
@@ -0,0 +1,250 @@
+package SERVIDOR;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Protocolo de texto original: menús y mensajes legibles, una línea tras
+ * otra, pensados para {@code Cliente} en consola.
+ *
+ * Las preguntas y las clasificaciones se escriben una sola vez a UTF-8 (ver
+ * {@link Pregunta#codificada} y {@link Clasificacion#codificada}) y todas las
+ * sesiones envían esos bytes tal cual.
+ *
+ * Cada mensaje se escribe entero en su propio buffer y sale con un solo
+ * {@link Conexion#enviar(byte[])}: los métodos se llaman a la vez desde la
+ * sesión, desde las de otros jugadores y desde el {@link Planificador}, así
+ * que no se comparte ningún buffer de escritura. Los mensajes
+ * fijos se escriben una vez para todas las sesiones.
+ */
+final class SalidaTexto implements SalidaCliente {
+    private static final byte[] MENU = renderizar(out -> {
+        out.println("=== TRIVIAL MULTIJUGADOR ===");
+        out.println("1. Crear partida");
+        out.println("2. Unirse a partida");
+        out.println("3. Salir");
+        out.println("4. Partida rápida");
+        out.println("Seleccione una opción:");
+    });
+    private static final byte[] PEDIR_NOMBRE = renderizar(out -> out.println("Introduce tu nombre:"));
+    private static final byte[] PEDIR_CODIGO = renderizar(out -> out.println("Introduce el código de la partida:"));
+    private static final byte[] UNIDO = renderizar(
+            out -> out.println("\nTe has unido a la partida. Esperando a que el creador inicie la partida..."));
+    private static final byte[] BUSCANDO = renderizar(
+            out -> out.println("\nBuscando rivales. La partida empezará en cuanto haya jugadores suficientes..."));
+    private static final byte[] INICIO = renderizar(out -> out.println("\n¡La partida comienza!"));
+    private static final byte[] RESPUESTA_REGISTRADA = renderizar(
+            out -> out.println("\nRespuesta registrada. Esperando a que respondan los demás jugadores..."));
+    private static final byte[] TIEMPO_AGOTADO = renderizar(out -> out.println("\n¡Tiempo agotado!"));
+    private static final byte[] CANCELADA = renderizar(out -> out.println("\nLa partida se ha cancelado por inactividad."));
+    private static final byte[] DESPEDIDA = renderizar(out -> out.println("Conexión cerrada. ¡Hasta pronto!"));
+
+    private final Conexion conexion;
+
+    SalidaTexto(Conexion conexion) {
+        this.conexion = conexion;
+    }
+
+    @Override
+    public void menuPrincipal() {
+        conexion.enviar(MENU);
+    }
+
+    @Override
+    public void pedirNombre() {
+        conexion.enviar(PEDIR_NOMBRE);
+    }
+
+    @Override
+    public void pedirCodigo() {
+        conexion.enviar(PEDIR_CODIGO);
+    }
+
+    @Override
+    public void partidaCreada(String codigo) {
+        conexion.enviar(renderizar(out -> {
+            out.println("Partida creada con código: " + codigo);
+            out.println("\nPartida creada. Esperando que se unan jugadores...");
+        }));
+    }
+
+    @Override
+    public void unidoAPartida(String codigo) {
+        conexion.enviar(UNIDO);
+    }
+
+    @Override
+    public void buscandoPartida() {
+        conexion.enviar(BUSCANDO);
+    }
+
+    @Override
+    public void partidaEncontrada(String codigo) {
+        conexion.enviar(renderizar(out -> out.println("\nPartida encontrada: " + codigo)));
+    }
+
+    @Override
+    public void aviso(Aviso aviso) {
+        conexion.enviar(renderizar(out -> out.println(aviso.getTexto())));
+    }
+
+    @Override
+    public void menuComenzar(int jugadoresConectados) {
+        conexion.enviar(renderizar(out -> {
+            out.println("\n=== MENÚ DE INICIO ===");
+            out.println("Jugadores conectados: " + jugadoresConectados);
+            out.println("1. Comenzar partida");
+            out.println("2. Seguir esperando");
+            out.println("Seleccione una opción:");
+        }));
+    }
+
+    @Override
+    public void jugadorSalio(JugadorPartida saliente) {
+        conexion.enviar(renderizar(out -> out.println("\n" + saliente.getNombre() + " ha abandonado la partida.")));
+    }
+
+    @Override
+    public void partidaIniciada() {
+        conexion.enviar(INICIO);
+    }
+
+    @Override
+    public void rondaIniciada(int ronda, int totalRondas, Pregunta pregunta, int segundos) {
+        if (pregunta == null) {
+            conexion.enviar(renderizar(out -> {
+                out.println("\n=== INICIANDO RONDA " + ronda + " ===");
+                out.println("Error: No hay pregunta disponible");
+            }));
+            return;
+        }
+        byte[] cabecera = renderizar(out -> {
+            out.println("\n=== INICIANDO RONDA " + ronda + " ===");
+            out.println("\n=== RONDA " + ronda + " DE " + totalRondas + " ===");
+        });
+        byte[] cuerpo = pregunta.codificada(SalidaTexto.class, SalidaTexto::renderizarPregunta);
+        byte[] pie = renderizar(out -> {
+            out.println("\nTienes " + segundos + " segundos para responder.");
+            out.println("Escribe tu respuesta (A, B, C o D): ");
+        });
+        enviar(cabecera, cuerpo, pie);
+    }
+
+    private static byte[] renderizarPregunta(Pregunta pregunta) {
+        return renderizar(out -> {
+            out.println("\nPregunta: " + pregunta.getEnunciado());
+
+            if (pregunta.getCodigo() != null && !pregunta.getCodigo().isEmpty()) {
+                out.println("\nCódigo:\n" + pregunta.getCodigo());
+            }
+
+            List<String> opciones = pregunta.getOpciones();
+            for (int i = 0; i < opciones.size(); i++) {
+                out.println((char) ('A' + i) + ") " + opciones.get(i));
+            }
+        });
+    }
+
+    @Override
+    public void respuestaRegistrada() {
+        conexion.enviar(RESPUESTA_REGISTRADA);
+    }
+
+    @Override
+    public void faltanPorResponder(int jugadoresSinResponder) {
+        // si el cliente va retrasado este aviso se puede descartar
+        conexion.enviarProgreso(renderizar(
+                out -> out.println("Faltan " + jugadoresSinResponder + " jugadores por responder...")));
+    }
+
+    @Override
+    public void rondaFinalizada(Clasificacion clasificacion, boolean tiempoAgotado) {
+        byte[] resultados = clasificacion.codificada(SalidaTexto.class, SalidaTexto::renderizarRonda);
+        if (tiempoAgotado) {
+            enviar(TIEMPO_AGOTADO, resultados);
+        } else {
+            conexion.enviar(resultados);
+        }
+    }
+
+    private static byte[] renderizarRonda(Clasificacion clasificacion) {
+        return renderizar(out -> {
+            out.println("\n=== RESULTADOS DE LA RONDA " + clasificacion.getRonda() + " ===");
+            List<JugadorPartida> ranking = clasificacion.getRanking();
+            for (int i = 0; i < ranking.size(); i++) {
+                out.println(ranking.get(i).getNombre() + ": " + clasificacion.getPuntos(i) + " puntos");
+            }
+            if (clasificacion.quedanRondas()) {
+                out.println("\nPreparando siguiente ronda...");
+            }
+        });
+    }
+
+    @Override
+    public void resultadosFinales(Clasificacion resultado) {
+        conexion.enviar(resultado.codificada(SalidaTexto.class, SalidaTexto::renderizarFinal));
+    }
+
+    private static byte[] renderizarFinal(Clasificacion resultado) {
+        return renderizar(out -> {
+            out.println("\n=== RESULTADOS FINALES ===");
+
+            // los ganadores van primero en el ranking, así que sus puntos son los de la posición 0
+            if (!resultado.hayGanador()) {
+                out.println("\n¡No hay ganador! Ningún jugador consiguió puntos.");
+            } else if (resultado.hayEmpate()) {
+                out.println("\n¡EMPATE entre los siguientes jugadores!");
+                for (JugadorPartida ganador : resultado.getGanadores()) {
+                    out.println("- " + ganador.getNombre() + ": " + resultado.getPuntos(0) + " puntos");
+                }
+            } else {
+                out.println("\n ¡GANADOR: " + resultado.getGanadores().get(0).getNombre() + "!");
+                out.println("Puntuación: " + resultado.getPuntos(0) + " puntos");
+            }
+
+            out.println("\nRanking final:");
+            List<JugadorPartida> ranking = resultado.getRanking();
+            for (int i = 0; i < ranking.size(); i++) {
+                out.println((i + 1) + ". " + ranking.get(i).getNombre() + ": " + resultado.getPuntos(i) + " puntos");
+            }
+            out.println("\n¡Gracias por jugar!");
+        });
+    }
+
+    @Override
+    public void partidaCancelada() {
+        conexion.enviar(CANCELADA);
+    }
+
+    @Override
+    public void despedida() {
+        conexion.enviar(DESPEDIDA);
+    }
+
+    /** Junta las partes en un solo envío para que el mensaje no salga troceado. */
+    private void enviar(byte[]... partes) {
+        int total = 0;
+        for (byte[] parte : partes) {
+            total += parte.length;
+        }
+        byte[] mensaje = new byte[total];
+        int posicion = 0;
+        for (byte[] parte : partes) {
+            System.arraycopy(parte, 0, mensaje, posicion, parte.length);
+            posicion += parte.length;
+        }
+        conexion.enviar(mensaje);
+    }
+
+    /** Texto escrito con println, igual que el resto de mensajes, pasado a UTF-8. */
+    private static byte[] renderizar(Consumer<PrintWriter> escribir) {
+        StringWriter texto = new StringWriter();
+        PrintWriter out = new PrintWriter(texto);
+        escribir.accept(out);
+        out.flush();
+        return texto.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,183 @@
+package SERVIDOR;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servidor basado en {@link Selector}: un hilo acepta conexiones y las reparte
+ * entre un reactor por núcleo. Las sesiones solo ocupan un hilo trabajador
+ * mientras procesan una línea, así que no hay límite fijo de clientes.
+ */
+public class ServidorNIO {
+    private static final int BACKLOG = 1024;
+    // lo que se espera a reactores y trabajadores al parar
+    private static final long ESPERA_PARADA_S = 5;
+    private final int puerto;
+    private final ReactorNIO[] reactores;
+    private final Thread[] hilosReactores;
+    private final ExecutorService trabajadores;
+    private final GestorPartidas gestorPartidas;
+    private int siguienteReactor;
+    private volatile Selector selector;
+    private volatile ServerSocketChannel canalServidor;
+    private volatile boolean detenido;
+    private boolean liberado;
+
+    public ServidorNIO(int puerto) throws IOException {
+        this(puerto, GestorPartidas.getInstance());
+    }
+
+    public ServidorNIO(int puerto, GestorPartidas gestorPartidas) throws IOException {
+        this.puerto = puerto;
+        this.gestorPartidas = gestorPartidas;
+        this.reactores = new ReactorNIO[Runtime.getRuntime().availableProcessors()];
+        this.hilosReactores = new Thread[reactores.length];
+        for (int i = 0; i < reactores.length; i++) {
+            reactores[i] = new ReactorNIO();
+        }
+        this.trabajadores = Executors.newCachedThreadPool();
+        GestorPreguntas.getInstance();
+        HistorialJugadores.getInstance();
+    }
+
+    /** Arranca el servidor y atiende conexiones hasta que se llame a {@link #detener()}. */
+    public void iniciar() {
+        try {
+            abrir();
+        } catch (IOException e) {
+            Registro.error("Error en el servidor: " + e.getMessage());
+            detener();
+            return;
+        }
+        aceptarConexiones();
+    }
+
+    /**
+     * Abre el puerto y pone en marcha los reactores. Si el puerto no se puede
+     * abrir falla aquí, en el hilo que arranca el servidor, y no dentro del
+     * bucle de {@link #aceptarConexiones()}.
+     */
+    public void abrir() throws IOException {
+        Selector nuevoSelector = Selector.open();
+        ServerSocketChannel canal = ServerSocketChannel.open();
+        try {
+            canal.bind(new InetSocketAddress(puerto), BACKLOG);
+            canal.configureBlocking(false);
+            canal.register(nuevoSelector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            canal.close();
+            nuevoSelector.close();
+            throw e;
+        }
+        this.selector = nuevoSelector;
+        this.canalServidor = canal;
+
+        for (int i = 0; i < reactores.length; i++) {
+            Thread hilo = new Thread(reactores[i], "reactor-" + i);
+            hilo.setDaemon(true);
+            hilosReactores[i] = hilo;
+            hilo.start();
+        }
+        Registro.info("Servidor Trivial (NIO) iniciado en puerto " + puerto
+                + " con " + reactores.length + " reactores");
+    }
+
+    /** Bucle del hilo aceptador; requiere {@link #abrir()} y termina con {@link #detener()}. */
+    public void aceptarConexiones() {
+        try {
+            while (!detenido) {
+                selector.select();
+                selector.selectedKeys().clear();
+                SocketChannel canal;
+                while ((canal = canalServidor.accept()) != null) {
+                    aceptar(canal);
+                }
+            }
+        } catch (IOException e) {
+            Registro.error("Error en el servidor: " + e.getMessage());
+        } finally {
+            cerrarSilenciosamente(canalServidor);
+            cerrarSilenciosamente(selector);
+            detener();
+        }
+    }
+
+    /**
+     * Deja de aceptar conexiones, cierra las de los clientes (que salen de sus
+     * partidas como si se hubieran desconectado) y para reactores y
+     * trabajadores. Vuelve cuando todo está parado o ha vencido la espera.
+     */
+    public void detener() {
+        detenido = true;
+        Selector actual = selector;
+        if (actual != null) {
+            actual.wakeup();
+        }
+        liberar();
+    }
+
+    private synchronized void liberar() {
+        if (liberado) {
+            return;
+        }
+        liberado = true;
+        try {
+            for (int i = 0; i < reactores.length; i++) {
+                Thread hilo = hilosReactores[i];
+                if (hilo == null) {
+                    reactores[i].cerrarConexiones();
+                } else {
+                    reactores[i].detener();
+                    hilo.join(TimeUnit.SECONDS.toMillis(ESPERA_PARADA_S));
+                }
+            }
+            // los reactores despachan a los trabajadores el cierre de cada sesión
+            trabajadores.shutdown();
+            if (!trabajadores.awaitTermination(ESPERA_PARADA_S, TimeUnit.SECONDS)) {
+                trabajadores.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            trabajadores.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void cerrarSilenciosamente(Closeable recurso) {
+        if (recurso == null) {
+            return;
+        }
+        try {
+            recurso.close();
+        } catch (IOException e) {
+            Registro.warn("Error al cerrar el servidor: " + e.getMessage());
+        }
+    }
+
+    private void aceptar(SocketChannel canal) {
+        try {
+            canal.configureBlocking(false);
+            canal.socket().setTcpNoDelay(true);
+        } catch (IOException e) {
+            Registro.warn("Error al aceptar cliente: " + e.getMessage());
+            return;
+        }
+        ReactorNIO reactor = reactores[siguienteReactor];
+        siguienteReactor = (siguienteReactor + 1) % reactores.length;
+
+        ConexionNIO conexion = new ConexionNIO(canal, reactor, trabajadores);
+        ControladorCliente controlador = new ControladorCliente(conexion, gestorPartidas);
+        conexion.setManejadores(controlador::atenderOrden, controlador::atenderDesconexion);
+        // el menú sale antes de registrar el canal: si no, la primera línea del
+        // cliente (la negociación del protocolo binario) podría atenderse antes
+        controlador.iniciarSesion();
+        reactor.registrar(conexion);
+    }
+}
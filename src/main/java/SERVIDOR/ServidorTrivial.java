@@ -2,7 +2,10 @@
 package SERVIDOR;
 
 
+import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -11,31 +14,93 @@ public class ServidorTrivial {
     private static final int PUERTO = 5000;
     private static final int MAX_CLIENTES = 100;
     private final ExecutorService poolHilos;
+    // hilos que vacían la cola de salida de cada conexión; null para el pool
+    // por defecto de ConexionSocket
+    private final Executor escritores;
     private final GestorPartidas gestorPartidas;
     
     public ServidorTrivial() {
-        this.poolHilos = Executors.newFixedThreadPool(MAX_CLIENTES);
-        this.gestorPartidas = GestorPartidas.getInstance();
+        this(Executors.newFixedThreadPool(MAX_CLIENTES));
+    }
+    
+    public ServidorTrivial(ExecutorService poolHilos) {
+        this(poolHilos, GestorPartidas.getInstance());
+    }
+    
+    public ServidorTrivial(ExecutorService poolHilos, GestorPartidas gestorPartidas) {
+        this(poolHilos, null, gestorPartidas);
+    }
+    
+    public ServidorTrivial(ExecutorService poolHilos, Executor escritores, GestorPartidas gestorPartidas) {
+        this.poolHilos = poolHilos;
+        this.escritores = escritores;
+        this.gestorPartidas = gestorPartidas;
+        // cargamos las preguntas antes de aceptar clientes, y no dentro del
+        // synchronized de Partida.comenzarPartida() en la primera partida
+        GestorPreguntas.getInstance();
+        HistorialJugadores.getInstance();
     }
     
     public void iniciar() {
         try (ServerSocket serverSocket = new ServerSocket(PUERTO)) {
-            System.out.println("Servidor Trivial iniciado en puerto " + PUERTO);
+            Registro.info("Servidor Trivial iniciado en puerto " + PUERTO);
             
             while (true) {
                 Socket clienteSocket = serverSocket.accept();
-                System.out.println("Nuevo cliente conectado desde: " + clienteSocket.getInetAddress());
-                ControladorCliente controlador = new ControladorCliente(clienteSocket);
+                ConexionSocket conexion = escritores != null
+                        ? new ConexionSocket(clienteSocket, escritores)
+                        : new ConexionSocket(clienteSocket);
+                ControladorCliente controlador = new ControladorCliente(conexion, gestorPartidas);
                 poolHilos.execute(controlador);
             }
         } catch (Exception e) {
-            System.err.println("Error en el servidor: " + e.getMessage());
+            Registro.error("Error en el servidor: " + e.getMessage());
         } finally {
             poolHilos.shutdown();
         }
     }
     
-    public static void main(String[] args) {
-        new ServidorTrivial().iniciar();
+    /**
+     * Un hilo virtual por sesión, sin el techo de {@code MAX_CLIENTES}. Se obtiene
+     * por reflexión para seguir compilando con Java 17; en JVMs sin hilos
+     * virtuales (el pom apunta a la 17) se usa un pool elástico de hilos de
+     * plataforma, y el arranque lo avisa.
+     */
+    static ExecutorService crearEjecutorVirtual() {
+        try {
+            Method fabrica = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) fabrica.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            Registro.warn("Esta JVM no tiene hilos virtuales (requieren Java 21): el modo virtual "
+                    + "usará un hilo de plataforma por sesión, sin límite de clientes");
+            return Executors.newCachedThreadPool();
+        }
+    }
+    
+    /**
+     * Modos de arranque: {@code nio} (por defecto) usa {@link ServidorNIO};
+     * {@code virtual} atiende cada sesión en un hilo virtual;
+     * {@code hilos} mantiene el servidor clásico de un hilo por cliente.
+     */
+    public static void main(String[] args) throws IOException {
+        String modo = args.length > 0 ? args[0] : "nio";
+        GestorPartidas gestorPartidas = GestorPartidas.getInstance();
+        gestorPartidas.iniciarLimpieza();
+        try {
+            switch (modo) {
+                case "hilos":
+                    new ServidorTrivial().iniciar();
+                    break;
+                case "virtual":
+                    // sesiones y escritores en hilos virtuales
+                    ExecutorService virtuales = crearEjecutorVirtual();
+                    new ServidorTrivial(virtuales, virtuales, gestorPartidas).iniciar();
+                    break;
+                default:
+                    new ServidorNIO(PUERTO).iniciar();
+            }
+        } finally {
+            gestorPartidas.detenerLimpieza();
+        }
     }
 }
@@ -0,0 +1,188 @@
+package SERVIDOR;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot binario del banco de preguntas, pensado para mapearse en memoria.
+ *
+ * Formato (enteros de 32 bits big-endian):
+ * <pre>
+ *   cabecera:  MAGIC VERSION numPreguntas numCadenas inicioCadenas
+ *   preguntas: id enunciado codigo categoria respuesta numOpciones opcion*
+ *   cadenas:   desplazamiento[numCadenas + 1] bytesUTF8
+ * </pre>
+ * Enunciados, códigos, categorías y opciones son índices a una tabla de
+ * cadenas compartida, así que un texto repetido ("Todas las anteriores", la
+ * categoría...) se guarda y se decodifica una sola vez. Un índice -1 es null.
+ *
+ * Se genera con {@code java SERVIDOR.SnapshotPreguntas salida.bin [entrada.json]}
+ * y se carga con {@code -Dtrivial.preguntas=salida.bin}.
+ */
+public final class SnapshotPreguntas {
+    private static final int MAGIC = 0x54525650; // "TRVP"
+    private static final int VERSION = 1;
+    private static final int TAM_CABECERA = 5 * Integer.BYTES;
+
+    private SnapshotPreguntas() {
+    }
+
+    public static void escribir(List<Pregunta> preguntas, Path destino) throws IOException {
+        Map<String, Integer> indices = new LinkedHashMap<>();
+        List<int[]> registros = new ArrayList<>(preguntas.size());
+        int tamRegistros = 0;
+        for (Pregunta pregunta : preguntas) {
+            List<String> opciones = pregunta.getOpciones();
+            int[] registro = new int[6 + opciones.size()];
+            registro[0] = pregunta.getId();
+            registro[1] = indice(indices, pregunta.getEnunciado());
+            registro[2] = indice(indices, pregunta.getCodigo());
+            registro[3] = indice(indices, pregunta.getCategoria());
+            registro[4] = pregunta.getRespuestaCorrecta();
+            registro[5] = opciones.size();
+            for (int i = 0; i < opciones.size(); i++) {
+                registro[6 + i] = indice(indices, opciones.get(i));
+            }
+            registros.add(registro);
+            tamRegistros += registro.length * Integer.BYTES;
+        }
+
+        List<byte[]> cadenas = new ArrayList<>(indices.size());
+        for (String cadena : indices.keySet()) {
+            cadenas.add(cadena.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGIC);
+            salida.writeInt(VERSION);
+            salida.writeInt(registros.size());
+            salida.writeInt(cadenas.size());
+            salida.writeInt(TAM_CABECERA + tamRegistros);
+            for (int[] registro : registros) {
+                for (int valor : registro) {
+                    salida.writeInt(valor);
+                }
+            }
+            int desplazamiento = 0;
+            salida.writeInt(desplazamiento);
+            for (byte[] cadena : cadenas) {
+                desplazamiento += cadena.length;
+                salida.writeInt(desplazamiento);
+            }
+            for (byte[] cadena : cadenas) {
+                salida.write(cadena);
+            }
+        }
+        Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static int indice(Map<String, Integer> indices, String cadena) {
+        if (cadena == null) {
+            return -1;
+        }
+        return indices.computeIfAbsent(cadena, c -> indices.size());
+    }
+
+    public static List<Pregunta> leer(Path origen) throws IOException {
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(origen, StandardOpenOption.READ)) {
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        try {
+            return leer(mapa, origen);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+            // un fichero truncado o a medio copiar deja índices fuera del mapa
+            throw new IOException(origen + " está truncado o dañado: " + e, e);
+        }
+    }
+
+    private static List<Pregunta> leer(MappedByteBuffer mapa, Path origen) throws IOException {
+        if (mapa.capacity() < TAM_CABECERA || mapa.getInt(0) != MAGIC) {
+            throw new IOException(origen + " no es un snapshot de preguntas");
+        }
+        if (mapa.getInt(4) != VERSION) {
+            throw new IOException("Versión de snapshot no soportada: " + mapa.getInt(4));
+        }
+        int numPreguntas = mapa.getInt(8);
+        TablaCadenas tabla = new TablaCadenas(mapa, mapa.getInt(12), mapa.getInt(16));
+
+        List<Pregunta> preguntas = new ArrayList<>(numPreguntas);
+        int posicion = TAM_CABECERA;
+        for (int i = 0; i < numPreguntas; i++) {
+            int id = mapa.getInt(posicion);
+            String enunciado = tabla.get(mapa.getInt(posicion + 4));
+            String codigo = tabla.get(mapa.getInt(posicion + 8));
+            String categoria = tabla.get(mapa.getInt(posicion + 12));
+            int respuesta = mapa.getInt(posicion + 16);
+            int numOpciones = mapa.getInt(posicion + 20);
+            posicion += 24;
+            List<String> opciones = new ArrayList<>(numOpciones);
+            for (int j = 0; j < numOpciones; j++) {
+                opciones.add(tabla.get(mapa.getInt(posicion)));
+                posicion += 4;
+            }
+            preguntas.add(new Pregunta(id, enunciado, codigo, opciones, respuesta, categoria));
+        }
+        return preguntas;
+    }
+
+    /** Decodifica cada cadena la primera vez que se pide y la reutiliza después. */
+    private static final class TablaCadenas {
+        private final ByteBuffer mapa;
+        private final int inicioDesplazamientos;
+        private final int inicioBytes;
+        private final String[] decodificadas;
+
+        TablaCadenas(ByteBuffer mapa, int numCadenas, int inicio) {
+            this.mapa = mapa;
+            this.inicioDesplazamientos = inicio;
+            this.inicioBytes = inicio + (numCadenas + 1) * Integer.BYTES;
+            this.decodificadas = new String[numCadenas];
+        }
+
+        String get(int indice) {
+            if (indice < 0) {
+                return null;
+            }
+            String cadena = decodificadas[indice];
+            if (cadena == null) {
+                int desde = mapa.getInt(inicioDesplazamientos + indice * Integer.BYTES);
+                int hasta = mapa.getInt(inicioDesplazamientos + (indice + 1) * Integer.BYTES);
+                ByteBuffer bytes = mapa.duplicate();
+                bytes.limit(inicioBytes + hasta).position(inicioBytes + desde);
+                cadena = StandardCharsets.UTF_8.decode(bytes).toString();
+                decodificadas[indice] = cadena;
+            }
+            return cadena;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Uso: java SERVIDOR.SnapshotPreguntas salida.bin [entrada.json]");
+            System.exit(1);
+        }
+        List<Pregunta> preguntas = args.length > 1
+            ? CargadorPreguntas.desdeRuta(Paths.get(args[1]))
+            : CargadorPreguntas.desdeClasspath();
+        Path destino = Paths.get(args[0]);
+        escribir(preguntas, destino);
+        System.out.println("Snapshot con " + preguntas.size() + " preguntas escrito en " + destino
+            + " (" + Files.size(destino) + " bytes)");
+    }
+}